@@ -0,0 +1,89 @@
+package com.sachetto.streaming.config;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@Component
+public class RenditionLadder {
+
+    public static final String RENDITION_PATTERN = "[A-Za-z0-9_-]+";
+    private static final int AUDIO_KBPS_ESTIMADO = 128;
+
+    public record Rendition(String name, int width, int height, int videoKbps) {
+
+        public long bandwidth() {
+            return (videoKbps + (long) AUDIO_KBPS_ESTIMADO) * 1000;
+        }
+    }
+
+    @Value("${streaming.config.abr.renditions:}")
+    private String renditionsConfig;
+
+    private List<Rendition> renditions;
+
+    @PostConstruct
+    void init() {
+        List<Rendition> parsed = new ArrayList<>();
+        for (String entry : renditionsConfig.split(",")) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            String[] parts = entry.trim().split(":");
+            String[] size = parts.length == 3 ? parts[1].split("x") : new String[0];
+            if (size.length != 2 || !parts[0].matches(RENDITION_PATTERN)) {
+                throw new IllegalStateException("Rendição inválida em streaming.config.abr.renditions: " + entry);
+            }
+            parsed.add(new Rendition(parts[0], Integer.parseInt(size[0]), Integer.parseInt(size[1]), Integer.parseInt(parts[2])));
+        }
+        renditions = List.copyOf(parsed);
+        log.info("Escada de rendições ABR: {}", renditions.isEmpty() ? "desabilitada" : renditions);
+    }
+
+    public boolean isEnabled() {
+        return !renditions.isEmpty();
+    }
+
+    public List<Rendition> renditions() {
+        return renditions;
+    }
+
+    public List<Rendition> renditionsFor(int sourceWidth, int sourceHeight) {
+        if (renditions.isEmpty() || sourceWidth <= 0 || sourceHeight <= 0) {
+            return renditions;
+        }
+
+        List<Rendition> aplicaveis = renditions.stream()
+                .map(rendition -> fit(rendition, sourceWidth, sourceHeight))
+                .filter(rendition -> rendition.width() <= sourceWidth && rendition.height() <= sourceHeight)
+                .toList();
+        if (!aplicaveis.isEmpty()) {
+            return aplicaveis;
+        }
+
+        Rendition menor = renditions.stream().min(Comparator.comparingInt(Rendition::height)).orElseThrow();
+        return List.of(new Rendition(menor.name(), even(sourceWidth), even(sourceHeight), menor.videoKbps()));
+    }
+
+    public Optional<Rendition> find(String name) {
+        return renditions.stream().filter(rendition -> rendition.name().equals(name)).findFirst();
+    }
+
+    private static Rendition fit(Rendition rendition, int sourceWidth, int sourceHeight) {
+        long width = Math.min(rendition.width(), Math.round((double) rendition.height() * sourceWidth / sourceHeight));
+        long height = Math.min(rendition.height(), Math.round((double) rendition.width() * sourceHeight / sourceWidth));
+        return new Rendition(rendition.name(), even((int) width), even((int) height), rendition.videoKbps());
+    }
+
+    private static int even(int size) {
+        return Math.max(2, size / 2 * 2);
+    }
+}
@@ -1,13 +1,20 @@
 package com.sachetto.streaming.controller;
 
+import java.util.List;
+
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.sachetto.streaming.dto.CatalogCursorResponseDto;
 import com.sachetto.streaming.dto.CatalogSearchResponseDto;
+import com.sachetto.streaming.dto.CatalogSuggestResponseDto;
+import com.sachetto.streaming.dto.ReindexStatusResponseDto;
 import com.sachetto.streaming.service.CatalogService;
+import com.sachetto.streaming.service.FileReindexService;
 
 import lombok.RequiredArgsConstructor;
 
@@ -19,6 +26,7 @@ import org.springframework.data.domain.Page;
 public class CatalogController {
 
     private final CatalogService catalogService;
+    private final FileReindexService fileReindexService;
 
     @GetMapping("/search")
     public ResponseEntity<Page<CatalogSearchResponseDto>> searchCatalog(
@@ -28,8 +36,33 @@ public class CatalogController {
         return ResponseEntity.ok(catalogService.searchCatalog(query, page, size));
     }
 
+    @GetMapping("/browse")
+    public ResponseEntity<CatalogCursorResponseDto> browse(
+            @RequestParam(name = "q", required = false) String query,
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "size", defaultValue = "20") int size) {
+        return ResponseEntity.ok(catalogService.browse(query, cursor, size));
+    }
+
+    @GetMapping("/suggest")
+    public ResponseEntity<List<CatalogSuggestResponseDto>> suggest(
+            @RequestParam(name = "q") String prefix,
+            @RequestParam(name = "size", defaultValue = "8") int size) {
+        return ResponseEntity.ok(catalogService.suggest(prefix, size));
+    }
+
     @GetMapping("/latest")
     public ResponseEntity<Page<CatalogSearchResponseDto>> getLatestCatalog() {
         return ResponseEntity.ok(catalogService.getLatestCatalog());
     }
+
+    @PostMapping("/reindex")
+    public ResponseEntity<ReindexStatusResponseDto> reindex() {
+        return ResponseEntity.accepted().body(fileReindexService.start());
+    }
+
+    @GetMapping("/reindex")
+    public ResponseEntity<ReindexStatusResponseDto> reindexStatus() {
+        return ResponseEntity.ok(fileReindexService.status());
+    }
 }
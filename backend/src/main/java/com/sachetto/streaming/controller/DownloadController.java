@@ -1,18 +1,32 @@
 package com.sachetto.streaming.controller;
 
+import java.io.IOException;
+import java.time.Duration;
 import java.util.UUID;
 
 import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.sachetto.streaming.config.RenditionLadder;
+import com.sachetto.streaming.dto.ExportStatusResponseDto;
+import com.sachetto.streaming.entity.TranscodeJobStatus;
 import com.sachetto.streaming.service.DownloadService;
+import com.sachetto.streaming.service.ExportService.ExportJob;
+import com.sachetto.streaming.service.PlaylistManifestService.EncodedPlaylist;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 
 @RestController
@@ -20,36 +34,93 @@ import lombok.RequiredArgsConstructor;
 @RequestMapping("/v1/download")
 public class DownloadController {
 
+    private static final MediaType MPEGURL = MediaType.parseMediaType("application/vnd.apple.mpegurl");
+    private static final MediaType VIDEO_MP2T = MediaType.parseMediaType("video/mp2t");
+    private static final MediaType VIDEO_MP4 = MediaType.parseMediaType("video/mp4");
+    private static final String EXPORT_FILENAME = "export.mp4";
+    private static final CacheControl PLAYLIST_CACHE = CacheControl.noCache().cachePrivate();
+    private static final CacheControl SEGMENT_CACHE = CacheControl.maxAge(Duration.ofDays(365)).cachePrivate().immutable();
+    private static final CacheControl EXPORT_CACHE = CacheControl.maxAge(Duration.ofDays(1)).cachePrivate();
+    private static final CacheControl THUMBNAIL_CACHE = CacheControl.maxAge(Duration.ofDays(1)).cachePublic();
+
     private final DownloadService downloadService;
+    private final ResourceRangeWriter resourceRangeWriter;
 
     @GetMapping("/{uploadId}/playlist.m3u8")
-    public ResponseEntity<Resource> getPlaylist(@PathVariable UUID uploadId) {
-        return ResponseEntity.ok()
-                .contentType(MediaType.parseMediaType("application/vnd.apple.mpegurl"))
-                .body(downloadService.getPlaylist(uploadId));
+    public ResponseEntity<byte[]> getPlaylist(@PathVariable UUID uploadId,
+            @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(name = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        return playlistResponse(downloadService.getPlaylist(uploadId), ifNoneMatch, acceptEncoding);
+    }
+
+    @GetMapping("/{uploadId}/{rendition:" + RenditionLadder.RENDITION_PATTERN + "}/playlist.m3u8")
+    public ResponseEntity<byte[]> getRenditionPlaylist(@PathVariable UUID uploadId, @PathVariable String rendition,
+            @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(name = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        return playlistResponse(downloadService.getPlaylist(uploadId, rendition), ifNoneMatch, acceptEncoding);
     }
 
     @GetMapping("/{uploadId}/{segmentName:.+\\.ts}")
-    public ResponseEntity<Resource> getSegment(@PathVariable UUID uploadId, @PathVariable String segmentName) {
-        return ResponseEntity.ok()
-                .contentType(MediaType.parseMediaType("video/mp2t"))
-                .body(downloadService.getSegment(uploadId, segmentName));
+    public void getSegment(@PathVariable UUID uploadId, @PathVariable String segmentName,
+            HttpServletRequest request, HttpServletResponse response) throws IOException {
+        resourceRangeWriter.write(request, response, downloadService.getSegment(uploadId, null, segmentName), VIDEO_MP2T, SEGMENT_CACHE);
+    }
+
+    @GetMapping("/{uploadId}/{rendition:" + RenditionLadder.RENDITION_PATTERN + "}/{segmentName:.+\\.ts}")
+    public void getRenditionSegment(@PathVariable UUID uploadId, @PathVariable String rendition, @PathVariable String segmentName,
+            HttpServletRequest request, HttpServletResponse response) throws IOException {
+        resourceRangeWriter.write(request, response, downloadService.getSegment(uploadId, rendition, segmentName), VIDEO_MP2T, SEGMENT_CACHE);
     }
     
     @GetMapping("/{uploadId}/export")
-    public ResponseEntity<Resource> export(@PathVariable UUID uploadId) {
-        Resource resource = downloadService.exportFile(uploadId);
-        return ResponseEntity.ok()
-                .contentType(MediaType.parseMediaType("video/mp4"))
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + resource.getFilename() + "\"")
-                .body(resource);
+    public void export(@PathVariable UUID uploadId, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        ExportJob job = downloadService.exportFile(uploadId);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + EXPORT_FILENAME + "\"");
+        if (job.getStatus() == TranscodeJobStatus.SUCCESS) {
+            resourceRangeWriter.write(request, response, downloadService.exportResource(job), VIDEO_MP4, EXPORT_CACHE);
+            return;
+        }
+
+        response.setContentType(VIDEO_MP4.toString());
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noStore().getHeaderValue());
+        downloadService.streamExport(job, response.getOutputStream());
+    }
+
+    @PostMapping("/{uploadId}/export")
+    public ResponseEntity<ExportStatusResponseDto> startExport(@PathVariable UUID uploadId) {
+        return ResponseEntity.accepted().body(toExportStatus(downloadService.exportFile(uploadId)));
+    }
+
+    @GetMapping("/{uploadId}/export/status")
+    public ResponseEntity<ExportStatusResponseDto> exportStatus(@PathVariable UUID uploadId) {
+        return ResponseEntity.ok(toExportStatus(downloadService.exportStatus(uploadId)));
     }
     
     @GetMapping("/{uploadId}/thumbnail")
-    public ResponseEntity<Resource> getThumbnail(@PathVariable UUID uploadId) {
+    public void getThumbnail(@PathVariable UUID uploadId, HttpServletRequest request, HttpServletResponse response) throws IOException {
         Resource resource = downloadService.getThumbnail(uploadId);
-        return ResponseEntity.ok()
-                .contentType(MediaType.IMAGE_JPEG)
-                .body(resource);
+        MediaType contentType = MediaTypeFactory.getMediaType(resource).orElse(MediaType.IMAGE_JPEG);
+        resourceRangeWriter.write(request, response, resource, contentType, THUMBNAIL_CACHE);
+    }
+
+    private ExportStatusResponseDto toExportStatus(ExportJob job) {
+        return new ExportStatusResponseDto(job.getUploadId(), job.getStatus(), job.getProgress(), job.getError());
+    }
+
+    private ResponseEntity<byte[]> playlistResponse(EncodedPlaylist playlist, String ifNoneMatch, String acceptEncoding) {
+        if (playlist.etag().equals(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(playlist.etag()).cacheControl(PLAYLIST_CACHE).build();
+        }
+
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .contentType(MPEGURL)
+                .eTag(playlist.etag())
+                .cacheControl(PLAYLIST_CACHE)
+                .varyBy(HttpHeaders.ACCEPT_ENCODING);
+
+        if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+            return builder.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(playlist.gzipBody());
+        }
+        return builder.body(playlist.body());
     }
 }
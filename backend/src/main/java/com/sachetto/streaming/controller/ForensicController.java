@@ -0,0 +1,37 @@
+package com.sachetto.streaming.controller;
+
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+
+import com.sachetto.streaming.dto.ForensicIdentifyResponseDto;
+import com.sachetto.streaming.service.ForensicVariantService;
+import com.sachetto.streaming.service.WatermarkService;
+
+import lombok.RequiredArgsConstructor;
+
+// Recebe segmentos .ts vazados (nome do arquivo = nome do segmento na playlist) e devolve o código e o usuário marcados
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/v1/forensic")
+public class ForensicController {
+
+    private final ForensicVariantService forensicVariantService;
+    private final WatermarkService watermarkService;
+
+    @PostMapping(value = "/{uploadId}/identify", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ForensicIdentifyResponseDto> identify(@PathVariable UUID uploadId,
+            @RequestParam(required = false) String rendition,
+            @RequestParam List<MultipartFile> segments) {
+        String codigo = forensicVariantService.identify(uploadId, rendition, segments);
+        return ResponseEntity.ok(new ForensicIdentifyResponseDto(uploadId, codigo, watermarkService.usuarioPorCodigo(codigo, uploadId)));
+    }
+}
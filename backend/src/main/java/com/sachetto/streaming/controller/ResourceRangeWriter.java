@@ -0,0 +1,255 @@
+package com.sachetto.streaming.controller;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import com.sachetto.streaming.util.ByteBufferResource;
+import com.sachetto.streaming.util.CheckSumUtil;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@Component
+public class ResourceRangeWriter {
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+    private static final String BYTES_UNIT = "bytes=";
+    private static final int MAX_ETAGS_EM_MEMORIA = 10_000;
+
+    private record Range(long start, long end) {
+        long length() {
+            return end - start + 1;
+        }
+    }
+
+    private record Validator(String path, long size, long lastModified) { }
+
+    private final Map<Validator, String> etags = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Validator, String> eldest) {
+            return size() > MAX_ETAGS_EM_MEMORIA;
+        }
+    });
+
+    @Value("${streaming.config.download.etag_hash_max_bytes:67108864}")
+    private long etagHashMaxBytes;
+
+    @Value("${streaming.config.download.sendfile_min_bytes:49152}")
+    private long sendfileMinBytes;
+
+    public void write(HttpServletRequest request, HttpServletResponse response, Resource resource,
+            MediaType contentType, CacheControl cacheControl) throws IOException {
+        long length = resource.contentLength();
+        long lastModified = resource.lastModified() / 1000 * 1000;
+        String etag = etag(resource, length, lastModified);
+
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, lastModified);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl.getHeaderValue());
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        if (isNotModified(request, etag, lastModified)) {
+            response.setStatus(HttpStatus.NOT_MODIFIED.value());
+            return;
+        }
+
+        response.setContentType(contentType.toString());
+
+        Range range = resolveRange(request, etag, lastModified, length);
+        if (range == null) {
+            response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+            return;
+        }
+
+        if (range.length() != length) {
+            response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + range.start() + "-" + range.end() + "/" + length);
+        } else {
+            response.setStatus(HttpStatus.OK.value());
+        }
+        response.setContentLengthLong(range.length());
+
+        if (HttpMethod.HEAD.matches(request.getMethod()) || range.length() == 0) {
+            return;
+        }
+
+        if (resource instanceof ByteBufferResource memory) {
+            writeBuffer(response, memory, range);
+        } else if (resource.isFile()) {
+            writeFile(request, response, resource.getFile().toPath(), range);
+        } else {
+            writeStream(response, resource, range);
+        }
+    }
+
+    private String etag(Resource resource, long length, long lastModified) throws IOException {
+        if (resource instanceof ByteBufferResource memory) {
+            return memory.getEtag();
+        }
+        if (!resource.isFile()) {
+            return "\"" + Long.toHexString(length) + "-" + Long.toHexString(lastModified) + "\"";
+        }
+
+        Path path = resource.getFile().toPath();
+        Validator validator = new Validator(path.toAbsolutePath().toString(), length, lastModified);
+        String etag = etags.get(validator);
+        if (etag == null) {
+            etag = length <= etagHashMaxBytes
+                    ? "\"" + CheckSumUtil.calculateSingleFileHash(path) + "\""
+                    : "\"" + Long.toHexString(length) + "-" + Long.toHexString(lastModified) + "\"";
+            etags.put(validator, etag);
+        }
+        return etag;
+    }
+
+    private boolean isNotModified(HttpServletRequest request, String etag, long lastModified) {
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            return matchesEtag(ifNoneMatch, etag);
+        }
+
+        long ifModifiedSince = parseDate(request, HttpHeaders.IF_MODIFIED_SINCE);
+        return ifModifiedSince >= 0 && lastModified <= ifModifiedSince;
+    }
+
+    private boolean matchesEtag(String header, String etag) {
+        for (String candidate : header.split(",")) {
+            String value = candidate.trim();
+            if (value.equals("*") || value.equals(etag) || value.equals("W/" + etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Range resolveRange(HttpServletRequest request, String etag, long lastModified, long length) {
+        Range full = new Range(0, length - 1);
+        String header = request.getHeader(HttpHeaders.RANGE);
+        if (header == null || !header.startsWith(BYTES_UNIT) || header.contains(",") || !ifRangeMatches(request, etag, lastModified)) {
+            return full;
+        }
+
+        String spec = header.substring(BYTES_UNIT.length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return full;
+        }
+
+        try {
+            String startSpec = spec.substring(0, dash).trim();
+            String endSpec = spec.substring(dash + 1).trim();
+
+            if (startSpec.isEmpty()) {
+                long suffix = Long.parseLong(endSpec);
+                if (suffix <= 0) {
+                    return null;
+                }
+                return new Range(Math.max(0, length - suffix), length - 1);
+            }
+
+            long start = Long.parseLong(startSpec);
+            long end = endSpec.isEmpty() ? length - 1 : Math.min(Long.parseLong(endSpec), length - 1);
+            if (start >= length || start > end) {
+                return null;
+            }
+            return new Range(start, end);
+        } catch (NumberFormatException _) {
+            return full;
+        }
+    }
+
+    private boolean ifRangeMatches(HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"")) {
+            return ifRange.equals(etag);
+        }
+        return parseDate(request, HttpHeaders.IF_RANGE) == lastModified;
+    }
+
+    private long parseDate(HttpServletRequest request, String header) {
+        try {
+            return request.getDateHeader(header);
+        } catch (IllegalArgumentException _) {
+            return -1;
+        }
+    }
+
+    private void writeFile(HttpServletRequest request, HttpServletResponse response, Path path, Range range) throws IOException {
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT)) && range.length() >= sendfileMinBytes) {
+            log.trace("Enviando {} via sendfile ({}-{})", path, range.start(), range.end());
+            request.setAttribute(SENDFILE_FILENAME, path.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, range.start());
+            request.setAttribute(SENDFILE_END, range.end() + 1);
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            WritableByteChannel target = Channels.newChannel(response.getOutputStream());
+            long position = range.start();
+            long remaining = range.length();
+            while (remaining > 0) {
+                long transferred = channel.transferTo(position, remaining, target);
+                if (transferred <= 0) {
+                    break;
+                }
+                position += transferred;
+                remaining -= transferred;
+            }
+        }
+    }
+
+    private void writeBuffer(HttpServletResponse response, ByteBufferResource resource, Range range) throws IOException {
+        ByteBuffer content = resource.slice(range.start(), range.length());
+        WritableByteChannel target = Channels.newChannel(response.getOutputStream());
+        while (content.hasRemaining()) {
+            target.write(content);
+        }
+    }
+
+    private void writeStream(HttpServletResponse response, Resource resource, Range range) throws IOException {
+        try (InputStream is = resource.getInputStream()) {
+            is.skipNBytes(range.start());
+            OutputStream os = response.getOutputStream();
+            byte[] buffer = new byte[8192];
+            long remaining = range.length();
+            while (remaining > 0) {
+                int read = is.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                if (read < 0) {
+                    break;
+                }
+                os.write(buffer, 0, read);
+                remaining -= read;
+            }
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.sachetto.streaming.controller;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import com.sachetto.streaming.exception.ChunkInvalidoException;
+import com.sachetto.streaming.exception.ChunkMuitoGrandeException;
+import com.sachetto.streaming.exception.CursorInvalidoException;
+import com.sachetto.streaming.exception.FFmpegSaturadoException;
+import com.sachetto.streaming.exception.IdentificacaoForenseException;
+import com.sachetto.streaming.exception.UploadEmProcessamentoException;
+
+@RestControllerAdvice
+public class RestExceptionHandler {
+
+    @ExceptionHandler(FFmpegSaturadoException.class)
+    public ResponseEntity<String> handleFFmpegSaturado(FFmpegSaturadoException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(e.getMessage());
+    }
+
+    @ExceptionHandler(CursorInvalidoException.class)
+    public ResponseEntity<String> handleCursorInvalido(CursorInvalidoException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+
+    @ExceptionHandler(ChunkInvalidoException.class)
+    public ResponseEntity<String> handleChunkInvalido(ChunkInvalidoException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+
+    @ExceptionHandler(ChunkMuitoGrandeException.class)
+    public ResponseEntity<String> handleChunkMuitoGrande(ChunkMuitoGrandeException e) {
+        return ResponseEntity.status(HttpStatus.CONTENT_TOO_LARGE).body(e.getMessage());
+    }
+
+    @ExceptionHandler(UploadEmProcessamentoException.class)
+    public ResponseEntity<String> handleUploadEmProcessamento(UploadEmProcessamentoException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+    }
+
+    @ExceptionHandler(IdentificacaoForenseException.class)
+    public ResponseEntity<String> handleIdentificacaoForense(IdentificacaoForenseException e) {
+        return ResponseEntity.unprocessableEntity().body(e.getMessage());
+    }
+}
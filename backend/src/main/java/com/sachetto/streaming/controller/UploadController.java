@@ -1,11 +1,18 @@
 package com.sachetto.streaming.controller;
 
+import java.io.IOException;
+import java.util.UUID;
+
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.ModelAttribute;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -15,8 +22,11 @@ import com.sachetto.streaming.dto.CompleteRequestDto;
 import com.sachetto.streaming.dto.CompleteResponseDto;
 import com.sachetto.streaming.dto.InitRequestDto;
 import com.sachetto.streaming.dto.InitResponseDto;
+import com.sachetto.streaming.dto.ManifestResponseDto;
+import com.sachetto.streaming.dto.UploadStatusResponseDto;
 import com.sachetto.streaming.service.UploadService;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 
@@ -25,6 +35,8 @@ import lombok.RequiredArgsConstructor;
 @RequestMapping("/v1/upload")
 public class UploadController {
 	
+	private static final String CHUNK_HASH_HEADER = "X-Chunk-Hash";
+	
 	private final UploadService uploadService;
 
 	@PostMapping(value = "/init", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
@@ -37,8 +49,24 @@ public class UploadController {
 		return ResponseEntity.status(HttpStatus.CREATED).body(uploadService.chunk(chunkRequestDto)); 
 	}
 	
+	@PutMapping(value = "/{uploadId}/chunks/{index}", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+	public ResponseEntity<ChunkResponseDto> chunk(@PathVariable UUID uploadId, @PathVariable Long index,
+			@RequestHeader(CHUNK_HASH_HEADER) String chunkHash, HttpServletRequest request) throws IOException {
+		return ResponseEntity.status(HttpStatus.CREATED).body(uploadService.chunk(uploadId, index, chunkHash, request.getContentLengthLong(), request.getInputStream()));
+	}
+	
 	@PostMapping("/complete")
 	public ResponseEntity<CompleteResponseDto> complete(@RequestBody @Valid CompleteRequestDto completeRequestDto) {
-		return ResponseEntity.status(HttpStatus.CREATED).body(uploadService.complete(completeRequestDto)); 
+		return ResponseEntity.status(HttpStatus.ACCEPTED).body(uploadService.complete(completeRequestDto)); 
+	}
+	
+	@GetMapping("/{uploadId}/manifest")
+	public ResponseEntity<ManifestResponseDto> manifest(@PathVariable UUID uploadId) {
+		return ResponseEntity.ok(uploadService.manifest(uploadId));
+	}
+	
+	@GetMapping("/{uploadId}/status")
+	public ResponseEntity<UploadStatusResponseDto> status(@PathVariable UUID uploadId) {
+		return ResponseEntity.ok(uploadService.status(uploadId));
 	}
 }
@@ -0,0 +1,8 @@
+package com.sachetto.streaming.dto;
+
+import java.util.List;
+
+public record CatalogCursorResponseDto(
+	List<CatalogSearchResponseDto> content,
+	String nextCursor
+) { }
@@ -0,0 +1,7 @@
+package com.sachetto.streaming.dto;
+
+public record CatalogSuggestResponseDto(
+	String id,
+	String name,
+	String thumbnail
+) { }
@@ -1,6 +0,0 @@
-package com.sachetto.streaming.dto;
-
-public record ChunkIndexResponseDto(
-    Long index,
-    String hash
-) { }
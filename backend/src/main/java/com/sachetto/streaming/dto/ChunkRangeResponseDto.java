@@ -0,0 +1,6 @@
+package com.sachetto.streaming.dto;
+
+public record ChunkRangeResponseDto(
+    Long start,
+    Long end
+) { }
@@ -1,9 +1,11 @@
 package com.sachetto.streaming.dto;
 
-import java.util.List;
 import java.util.UUID;
 
+import com.sachetto.streaming.entity.TranscodeJobStatus;
+
 public record CompleteResponseDto(
 	UUID arquivoId,
-	List<String> chunksPath
+	UUID jobId,
+	TranscodeJobStatus status
 ) { }
@@ -0,0 +1,12 @@
+package com.sachetto.streaming.dto;
+
+import java.util.UUID;
+
+import com.sachetto.streaming.entity.TranscodeJobStatus;
+
+public record ExportStatusResponseDto(
+	UUID uploadId,
+	TranscodeJobStatus status,
+	Integer progress,
+	String error
+) { }
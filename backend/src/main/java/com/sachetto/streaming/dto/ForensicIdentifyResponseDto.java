@@ -0,0 +1,9 @@
+package com.sachetto.streaming.dto;
+
+import java.util.UUID;
+
+public record ForensicIdentifyResponseDto(
+	UUID uploadId,
+	String codigo,
+	Long usuarioId
+) { }
@@ -8,5 +8,7 @@ public record ManifestResponseDto(
     String fileName,
     Long fileSize,
     String fileHash,
-    List<ChunkIndexResponseDto> chunks
+    Long totalChunks,
+    Long receivedChunks,
+    List<ChunkRangeResponseDto> chunks
 ) { }
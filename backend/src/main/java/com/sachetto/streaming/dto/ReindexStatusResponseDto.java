@@ -0,0 +1,12 @@
+package com.sachetto.streaming.dto;
+
+import com.sachetto.streaming.entity.TranscodeJobStatus;
+
+public record ReindexStatusResponseDto(
+	TranscodeJobStatus status,
+	String index,
+	Long total,
+	Long indexed,
+	Double documentsPerSecond,
+	String error
+) { }
@@ -0,0 +1,14 @@
+package com.sachetto.streaming.dto;
+
+import java.util.UUID;
+
+import com.sachetto.streaming.entity.TranscodeJobStatus;
+
+public record UploadStatusResponseDto(
+	UUID uploadId,
+	UUID jobId,
+	TranscodeJobStatus status,
+	Integer progress,
+	Boolean valid,
+	String error
+) { }
@@ -0,0 +1,6 @@
+package com.sachetto.streaming.entity;
+
+public enum FileIndexOperation {
+	UPSERT,
+	DELETE
+}
@@ -0,0 +1,50 @@
+package com.sachetto.streaming.entity;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Entity
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "tb_file_index_outbox", indexes = {
+	@Index(name = "idx_file_index_outbox_next_attempt", columnList = "next_attempt_at")
+})
+public class FileIndexOutbox {
+
+	@Id
+	@Column(name = "pk_file_index_outbox")
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private Long id;
+
+	@Column(name = "file_id", nullable = false)
+	private UUID fileId;
+
+	@Enumerated(EnumType.STRING)
+	@Column(nullable = false)
+	private FileIndexOperation operation;
+
+	@Column(nullable = false)
+	private Integer attempts;
+
+	@Column(name = "next_attempt_at", nullable = false)
+	private LocalDateTime nextAttemptAt;
+
+	@Column(name = "created_at", nullable = false, updatable = false)
+	private LocalDateTime createdAt;
+}
@@ -7,19 +7,28 @@ import org.springframework.data.elasticsearch.annotations.DateFormat;
 import org.springframework.data.elasticsearch.annotations.Document;
 import org.springframework.data.elasticsearch.annotations.Field;
 import org.springframework.data.elasticsearch.annotations.FieldType;
+import org.springframework.data.elasticsearch.annotations.InnerField;
+import org.springframework.data.elasticsearch.annotations.MultiField;
+import org.springframework.data.elasticsearch.annotations.Setting;
 
 import lombok.Builder;
 import lombok.Data;
 
 @Data
 @Builder
-@Document(indexName = "idx_file")
+@Document(indexName = FileRead.INDEX_ALIAS)
+@Setting(settingPath = "/elasticsearch/file-read-settings.json")
 public class FileRead {
+
+	public static final String INDEX_ALIAS = "idx_file";
 	
     @Id
+    @Field(type = FieldType.Keyword, name = "id")
     private String id;
 
-    @Field(type = FieldType.Text, name = "name")
+    @MultiField(
+            mainField = @Field(type = FieldType.Text, name = "name"),
+            otherFields = @InnerField(suffix = "prefix", type = FieldType.Text, analyzer = "prefix_index", searchAnalyzer = "prefix_search"))
     private String name;
 
     @Field(type = FieldType.Text, name = "content")
@@ -0,0 +1,8 @@
+package com.sachetto.streaming.entity;
+
+public enum TranscodeJobStatus {
+	PENDING,
+	RUNNING,
+	SUCCESS,
+	FAILED
+}
@@ -0,0 +1,10 @@
+package com.sachetto.streaming.exception;
+
+public class ChunkInvalidoException extends RuntimeException {
+
+	private static final long serialVersionUID = -4127795638312096512L;
+
+	public ChunkInvalidoException() {
+		super("Índice de chunk inválido para o upload");
+	}
+}
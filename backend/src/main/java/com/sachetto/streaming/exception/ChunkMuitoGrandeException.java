@@ -0,0 +1,10 @@
+package com.sachetto.streaming.exception;
+
+public class ChunkMuitoGrandeException extends RuntimeException {
+
+	private static final long serialVersionUID = 5309871264452190187L;
+
+	public ChunkMuitoGrandeException(long maxBytes) {
+		super("Chunk excede o tamanho máximo de " + maxBytes + " bytes");
+	}
+}
@@ -0,0 +1,10 @@
+package com.sachetto.streaming.exception;
+
+public class CursorInvalidoException extends RuntimeException {
+
+	private static final long serialVersionUID = 3518260947712043395L;
+
+	public CursorInvalidoException() {
+		super("Cursor de paginação inválido");
+	}
+}
@@ -0,0 +1,16 @@
+package com.sachetto.streaming.exception;
+
+import lombok.Getter;
+
+@Getter
+public class FFmpegSaturadoException extends RuntimeException {
+
+	private static final long serialVersionUID = 6149732870423158841L;
+
+	private final long retryAfterSeconds;
+
+	public FFmpegSaturadoException(long retryAfterSeconds) {
+		super("Capacidade de processamento do FFMpeg esgotada, tente novamente em instantes");
+		this.retryAfterSeconds = retryAfterSeconds;
+	}
+}
@@ -0,0 +1,10 @@
+package com.sachetto.streaming.exception;
+
+public class IdentificacaoForenseException extends RuntimeException {
+
+	private static final long serialVersionUID = 6021937458816327401L;
+
+	public IdentificacaoForenseException(String motivo) {
+		super("Não foi possível identificar o código forense: " + motivo);
+	}
+}
@@ -0,0 +1,10 @@
+package com.sachetto.streaming.exception;
+
+public class UploadEmProcessamentoException extends RuntimeException {
+
+	private static final long serialVersionUID = -2870149635120947316L;
+
+	public UploadEmProcessamentoException() {
+		super("Upload já concluído ou em transcodificação, chunks não são mais aceitos");
+	}
+}
@@ -1,11 +1,14 @@
 package com.sachetto.streaming.listener;
 
+import java.time.LocalDateTime;
+
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Lazy;
-import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
 
 import com.sachetto.streaming.entity.File;
-import com.sachetto.streaming.entity.FileRead;
+import com.sachetto.streaming.entity.FileIndexOperation;
 
 import jakarta.persistence.PostPersist;
 import jakarta.persistence.PostRemove;
@@ -16,25 +19,29 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 public class FileElasticSyncListener {
 
+    public record FileIndexEvent() { }
+
+    private static final String INSERT_OUTBOX =
+            "INSERT INTO tb_file_index_outbox (file_id, operation, attempts, next_attempt_at, created_at) VALUES (?, ?, 0, ?, ?)";
+
 	@Lazy 
-    private final ElasticsearchOperations elasticsearchOperations;
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher applicationEventPublisher;
 
     @PostPersist
     @PostUpdate
     public void onPostSave(File file) {
-        FileRead fileRead = FileRead.builder()
-                .id(file.getId().toString())
-                .name(file.getName())
-                .content(file.getContent())
-                .thumbnail("http://localhost:8080/api/v1/download/" + file.getId() + "/thumbnail")
-                .createdAt(file.getCreatedAt())
-                .build();
-        
-        elasticsearchOperations.save(fileRead);
+        enqueue(file, FileIndexOperation.UPSERT);
     }
 
     @PostRemove
     public void onPostDelete(File file) {
-        elasticsearchOperations.delete(file.getId().toString(), FileRead.class);
+        enqueue(file, FileIndexOperation.DELETE);
+    }
+
+    private void enqueue(File file, FileIndexOperation operation) {
+        LocalDateTime now = LocalDateTime.now();
+        jdbcTemplate.update(INSERT_OUTBOX, file.getId(), operation.name(), now, now);
+        applicationEventPublisher.publishEvent(new FileIndexEvent());
     }
 }
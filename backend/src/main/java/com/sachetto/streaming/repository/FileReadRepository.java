@@ -1,6 +1,9 @@
 package com.sachetto.streaming.repository;
 
+import java.util.List;
+
 import org.springframework.data.elasticsearch.annotations.Query;
+import org.springframework.data.elasticsearch.annotations.SourceFilters;
 import org.springframework.data.elasticsearch.repository.ElasticsearchRepository;
 import org.springframework.stereotype.Repository;
 
@@ -15,5 +18,9 @@ public interface FileReadRepository extends ElasticsearchRepository<FileRead, St
     @Query("{\"multi_match\": {\"query\": \"?0\", \"fields\": [\"name\", \"content\"]}}")
     Page<FileRead> searchByNameOrContent(String query, Pageable pageable);
 
+    @Query("{\"match\": {\"name.prefix\": {\"query\": \"?0\", \"operator\": \"and\"}}}")
+    @SourceFilters(includes = { "id", "name", "thumbnail" })
+    List<FileRead> suggestByNamePrefix(String prefix, Pageable pageable);
+
     Page<FileRead> findAll(Pageable pageable);
 }
@@ -1,11 +1,28 @@
 package com.sachetto.streaming.repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
 
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import com.sachetto.streaming.entity.File;
 
 @Repository
-public interface FileRepository extends JpaRepository<File, UUID> { }
+public interface FileRepository extends JpaRepository<File, UUID> {
+
+	Window<File> findAllByOrderByIdAsc(ScrollPosition position, Limit limit);
+
+	Window<File> findByUpdatedAtGreaterThanEqualOrderByIdAsc(LocalDateTime updatedAt, ScrollPosition position, Limit limit);
+
+	Window<File> findByValidFalseAndCreatedAtBeforeOrderByIdAsc(LocalDateTime createdAt, ScrollPosition position, Limit limit);
+
+	@Query("select f.id from File f where f.id in :ids")
+	List<UUID> findExistingIds(Collection<UUID> ids);
+}
@@ -0,0 +1,53 @@
+package com.sachetto.streaming.repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.sachetto.streaming.entity.TranscodeJob;
+import com.sachetto.streaming.entity.TranscodeJobStatus;
+
+@Repository
+public interface TranscodeJobRepository extends JpaRepository<TranscodeJob, UUID> {
+
+	Optional<TranscodeJob> findFirstByFileIdOrderByCreatedAtDesc(UUID fileId);
+
+	Optional<TranscodeJob> findFirstByFileIdAndStatusIn(UUID fileId, Collection<TranscodeJobStatus> status);
+
+	List<TranscodeJob> findTop50ByStatusAndNodeIdOrderByCreatedAtAsc(TranscodeJobStatus status, String nodeId);
+
+	boolean existsByFileIdAndStatusIn(UUID fileId, Collection<TranscodeJobStatus> status);
+
+	@Modifying
+	@Transactional
+	@Query("update TranscodeJob j set j.status = :novo, j.updatedAt = CURRENT_TIMESTAMP where j.id = :id and j.status = :atual")
+	int updateStatus(UUID id, TranscodeJobStatus atual, TranscodeJobStatus novo);
+
+	@Modifying
+	@Transactional
+	@Query("update TranscodeJob j set j.status = :novo, j.updatedAt = CURRENT_TIMESTAMP where j.status = :atual and j.nodeId = :nodeId")
+	int updateAllStatusByNodeId(TranscodeJobStatus atual, TranscodeJobStatus novo, String nodeId);
+
+	@Modifying
+	@Transactional
+	@Query("update TranscodeJob j set j.progress = :progress, j.updatedAt = CURRENT_TIMESTAMP where j.id = :id")
+	int updateProgress(UUID id, Integer progress);
+
+	@Modifying
+	@Transactional
+	@Query("update TranscodeJob j set j.status = :status, j.error = :error, j.updatedAt = CURRENT_TIMESTAMP "
+			+ "where j.id = :id and j.status = com.sachetto.streaming.entity.TranscodeJobStatus.RUNNING")
+	int finish(UUID id, TranscodeJobStatus status, String error);
+
+	@Modifying
+	@Transactional
+	@Query("delete from TranscodeJob j where j.file.id in :fileIds")
+	int deleteByFileIdIn(Collection<UUID> fileIds);
+}
@@ -1,9 +1,14 @@
 package com.sachetto.streaming.repository;
 
+import java.util.Collection;
 import java.util.Optional;
+import java.util.UUID;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.sachetto.streaming.entity.File;
 import com.sachetto.streaming.entity.Usuario;
@@ -12,4 +17,12 @@ import com.sachetto.streaming.entity.Watermark;
 @Repository
 public interface WatermarkRepository extends JpaRepository<Watermark, Long> { 
 	Optional<Watermark> findByUsuarioAndFile(Usuario usuario, File file);
+
+	@Query("select w.usuario.id from Watermark w where w.codigo = :codigo and w.file.id = :fileId")
+	Optional<Long> findUsuarioIdByCodigoAndFileId(String codigo, UUID fileId);
+
+	@Modifying
+	@Transactional
+	@Query("delete from Watermark w where w.file.id in :fileIds")
+	int deleteByFileIdIn(Collection<UUID> fileIds);
 }
@@ -0,0 +1,204 @@
+package com.sachetto.streaming.service;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+
+import com.sachetto.streaming.util.SingleFlight;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import tools.jackson.databind.json.JsonMapper;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CatalogCacheService {
+
+    private static final String KEY_PREFIX = "catalog:";
+    private static final String GENERATION_KEY = "catalog:generation";
+    private static final String INVALIDATION_CHANNEL = "catalog:invalidate";
+
+    private record NearEntry(Object value, long expiresAt) { }
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedisConnectionFactory redisConnectionFactory;
+    private final JsonMapper jsonMapper;
+    private final MeterRegistry meterRegistry;
+
+    private final SingleFlight<String, Object> loads = new SingleFlight<>();
+    private Map<String, NearEntry> nearCache;
+    private Map<String, NearEntry> localCache;
+    private RedisMessageListenerContainer listenerContainer;
+    private volatile long generation;
+    private Counter nearHits;
+    private Counter redisHits;
+    private Counter misses;
+    private Counter coalesced;
+
+    @Value("${streaming.config.catalog.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${streaming.config.catalog.cache.near_size:1000}")
+    private int nearSize;
+
+    @Value("${streaming.config.catalog.cache.near_ttl_ms:5000}")
+    private long nearTtlMillis;
+
+    @Value("${streaming.config.catalog.cache.redis_ttl_ms:60000}")
+    private long redisTtlMillis;
+
+    @Value("${streaming.config.catalog.suggest.cache_size:10000}")
+    private int localSize;
+
+    @Value("${streaming.config.catalog.suggest.cache_ttl_ms:30000}")
+    private long localTtlMillis;
+
+    @PostConstruct
+    void start() {
+        nearCache = boundedCache(nearSize);
+        localCache = boundedCache(localSize);
+        nearHits = Counter.builder("streaming.catalog.cache.requests").tag("result", "near").register(meterRegistry);
+        redisHits = Counter.builder("streaming.catalog.cache.requests").tag("result", "redis").register(meterRegistry);
+        misses = Counter.builder("streaming.catalog.cache.requests").tag("result", "miss").register(meterRegistry);
+        coalesced = Counter.builder("streaming.catalog.cache.coalesced").register(meterRegistry);
+
+        if (!enabled) {
+            return;
+        }
+        generation = readGeneration();
+        try {
+            listenerContainer = new RedisMessageListenerContainer();
+            listenerContainer.setConnectionFactory(redisConnectionFactory);
+            listenerContainer.addMessageListener((message, _) -> onInvalidation(new String(message.getBody())),
+                    new ChannelTopic(INVALIDATION_CHANNEL));
+            listenerContainer.afterPropertiesSet();
+            listenerContainer.start();
+        } catch (RuntimeException e) {
+            log.warn("Não foi possível assinar invalidações do catálogo, near cache dependerá apenas do TTL", e);
+        }
+    }
+
+    @PreDestroy
+    void stop() throws Exception {
+        if (listenerContainer != null) {
+            listenerContainer.destroy();
+        }
+    }
+
+    public <T> T get(String key, Class<T> type, Supplier<T> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        String cacheKey = KEY_PREFIX + generation + ":" + key;
+        return type.cast(read(nearCache, nearTtlMillis, cacheKey, () -> load(cacheKey, type, loader)));
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T getLocal(String key, Supplier<T> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        return (T) read(localCache, localTtlMillis, KEY_PREFIX + generation + ":" + key, () -> {
+            misses.increment();
+            return loader.get();
+        });
+    }
+
+    public void invalidate() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            Long next = stringRedisTemplate.opsForValue().increment(GENERATION_KEY);
+            stringRedisTemplate.convertAndSend(INVALIDATION_CHANNEL, String.valueOf(next));
+            onInvalidation(String.valueOf(next));
+        } catch (RuntimeException e) {
+            log.warn("Falha ao publicar invalidação do catálogo", e);
+            generation++;
+            nearCache.clear();
+            localCache.clear();
+        }
+    }
+
+    private Object read(Map<String, NearEntry> cache, long ttlMillis, String cacheKey, Supplier<?> loader) {
+        NearEntry near = cache.get(cacheKey);
+        if (near != null && near.expiresAt() > System.currentTimeMillis()) {
+            nearHits.increment();
+            return near.value();
+        }
+
+        return loads.execute(cacheKey, () -> {
+            Object value = loader.get();
+            cache.put(cacheKey, new NearEntry(value, System.currentTimeMillis() + ttlMillis));
+            return value;
+        }, coalesced::increment);
+    }
+
+    private <T> T load(String cacheKey, Class<T> type, Supplier<T> loader) {
+        try {
+            String json = stringRedisTemplate.opsForValue().get(cacheKey);
+            if (json != null) {
+                redisHits.increment();
+                return jsonMapper.readValue(json, type);
+            }
+        } catch (RuntimeException e) {
+            log.debug("Falha ao ler cache do catálogo {} no Redis", cacheKey, e);
+        }
+
+        misses.increment();
+        T value = loader.get();
+        try {
+            stringRedisTemplate.opsForValue().set(cacheKey, jsonMapper.writeValueAsString(value), Duration.ofMillis(redisTtlMillis));
+        } catch (RuntimeException e) {
+            log.debug("Falha ao gravar cache do catálogo {} no Redis", cacheKey, e);
+        }
+        return value;
+    }
+
+    private void onInvalidation(String payload) {
+        try {
+            long received = Long.parseLong(payload);
+            if (received > generation) {
+                generation = received;
+            }
+        } catch (NumberFormatException _) {
+            generation = readGeneration();
+        }
+        nearCache.clear();
+        localCache.clear();
+        log.debug("Cache do catálogo invalidado, geração {}", generation);
+    }
+
+    private long readGeneration() {
+        try {
+            String value = stringRedisTemplate.opsForValue().get(GENERATION_KEY);
+            return value == null ? 0 : Long.parseLong(value);
+        } catch (RuntimeException e) {
+            log.warn("Não foi possível ler a geração do cache do catálogo", e);
+            return generation;
+        }
+    }
+
+    private static Map<String, NearEntry> boundedCache(int maxEntries) {
+        return Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, NearEntry> eldest) {
+                return size() > maxEntries;
+            }
+        });
+    }
+}
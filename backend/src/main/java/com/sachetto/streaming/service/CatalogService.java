@@ -1,13 +1,27 @@
 package com.sachetto.streaming.service;
 
+import java.util.List;
+import java.util.Locale;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.elasticsearch.client.elc.NativeQuery;
+import org.springframework.data.elasticsearch.client.elc.NativeQueryBuilder;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.SearchHit;
+import org.springframework.data.elasticsearch.core.SearchHits;
 import org.springframework.stereotype.Service;
 
+import com.sachetto.streaming.dto.CatalogCursorResponseDto;
 import com.sachetto.streaming.dto.CatalogSearchResponseDto;
+import com.sachetto.streaming.dto.CatalogSuggestResponseDto;
+import com.sachetto.streaming.entity.FileRead;
 import com.sachetto.streaming.repository.FileReadRepository;
+import com.sachetto.streaming.util.CatalogCursor;
 
 import lombok.RequiredArgsConstructor;
 
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 
@@ -15,15 +29,102 @@ import org.springframework.data.domain.Sort;
 @RequiredArgsConstructor
 public class CatalogService {
 
+    private static final int LATEST_SIZE = 10;
+    private static final int MAX_SUGGESTIONS = 20;
+    private static final int MAX_BROWSE_SIZE = 100;
+    private static final Sort BROWSE_SORT = Sort.by(Sort.Direction.DESC, "createdAt").and(Sort.by(Sort.Direction.DESC, "id"));
+
+    public record CachedPage(List<CatalogSearchResponseDto> content, int page, int size, long total) { }
+
     private final FileReadRepository fileReadRepository;
+    private final ElasticsearchOperations elasticsearchOperations;
+    private final CatalogCacheService catalogCacheService;
+
+    @Value("${streaming.config.catalog.cache.max_query_length:100}")
+    private int maxCachedQueryLength;
+
+    @Value("${streaming.config.catalog.suggest.max_cached_prefix:12}")
+    private int maxCachedPrefixLength;
 
     public Page<CatalogSearchResponseDto> searchCatalog(String query, int page, int size) {
-        return fileReadRepository.searchByNameOrContent(query, PageRequest.of(page, size))
-                .map(fileRead -> new CatalogSearchResponseDto(fileRead.getId(), fileRead.getName(), fileRead.getContent(), fileRead.getThumbnail()));
+        String normalized = normalize(query);
+        if (normalized.length() > maxCachedQueryLength) {
+            return search(query, page, size);
+        }
+        String key = "search:" + page + ":" + size + ":" + normalized;
+        return toPage(catalogCacheService.get(key, CachedPage.class, () -> toCached(search(normalized, page, size))));
     }
-    
+
     public Page<CatalogSearchResponseDto> getLatestCatalog() {
-        return fileReadRepository.findAll(PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "createdAt")))
-                .map(fileRead -> new CatalogSearchResponseDto(fileRead.getId(), fileRead.getName(), fileRead.getContent(), fileRead.getThumbnail()));
+        return toPage(catalogCacheService.get("latest:" + LATEST_SIZE, CachedPage.class, () -> toCached(
+                fileReadRepository.findAll(PageRequest.of(0, LATEST_SIZE, Sort.by(Sort.Direction.DESC, "createdAt")))
+                        .map(CatalogService::toDto))));
+    }
+
+    public CatalogCursorResponseDto browse(String query, String cursor, int size) {
+        String normalized = normalize(query);
+        int limit = Math.clamp(size, 1, MAX_BROWSE_SIZE);
+        CatalogCursor after = cursor == null || cursor.isBlank() ? null : CatalogCursor.decode(cursor);
+        if (after != null || normalized.length() > maxCachedQueryLength) {
+            return findAfter(normalized, after, limit);
+        }
+        return catalogCacheService.get("browse:" + limit + ":" + normalized, CatalogCursorResponseDto.class,
+                () -> findAfter(normalized, null, limit));
+    }
+
+    private CatalogCursorResponseDto findAfter(String query, CatalogCursor after, int limit) {
+        NativeQueryBuilder builder = NativeQuery.builder()
+                .withQuery(q -> query.isEmpty()
+                        ? q.matchAll(m -> m)
+                        : q.multiMatch(m -> m.query(query).fields("name", "content")))
+                .withSort(BROWSE_SORT)
+                .withMaxResults(limit)
+                .withTrackTotalHits(false);
+        if (after != null) {
+            builder.withSearchAfter(after.searchAfter());
+        }
+
+        SearchHits<FileRead> hits = elasticsearchOperations.search(builder.build(), FileRead.class);
+        List<SearchHit<FileRead>> page = hits.getSearchHits();
+        String nextCursor = page.size() < limit ? null : CatalogCursor.fromSortValues(page.getLast().getSortValues()).encode();
+        return new CatalogCursorResponseDto(page.stream().map(hit -> toDto(hit.getContent())).toList(), nextCursor);
+    }
+
+    public List<CatalogSuggestResponseDto> suggest(String prefix, int size) {
+        String normalized = normalize(prefix);
+        int limit = Math.clamp(size, 1, MAX_SUGGESTIONS);
+        if (normalized.isEmpty()) {
+            return List.of();
+        }
+        if (normalized.length() > maxCachedPrefixLength) {
+            return findSuggestions(normalized, limit);
+        }
+        return catalogCacheService.getLocal("suggest:" + limit + ":" + normalized, () -> findSuggestions(normalized, limit));
+    }
+
+    private List<CatalogSuggestResponseDto> findSuggestions(String prefix, int limit) {
+        return fileReadRepository.suggestByNamePrefix(prefix, PageRequest.of(0, limit)).stream()
+                .map(fileRead -> new CatalogSuggestResponseDto(fileRead.getId(), fileRead.getName(), fileRead.getThumbnail()))
+                .toList();
+    }
+
+    private Page<CatalogSearchResponseDto> search(String query, int page, int size) {
+        return fileReadRepository.searchByNameOrContent(query, PageRequest.of(page, size)).map(CatalogService::toDto);
+    }
+
+    private static CatalogSearchResponseDto toDto(FileRead fileRead) {
+        return new CatalogSearchResponseDto(fileRead.getId(), fileRead.getName(), fileRead.getContent(), fileRead.getThumbnail());
+    }
+
+    private static CachedPage toCached(Page<CatalogSearchResponseDto> page) {
+        return new CachedPage(page.getContent(), page.getNumber(), page.getSize(), page.getTotalElements());
+    }
+
+    private static Page<CatalogSearchResponseDto> toPage(CachedPage cached) {
+        return new PageImpl<>(cached.content(), PageRequest.of(cached.page(), cached.size()), cached.total());
+    }
+
+    private static String normalize(String query) {
+        return query == null ? "" : query.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
     }
 }
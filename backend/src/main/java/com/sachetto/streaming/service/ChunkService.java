@@ -1,15 +1,20 @@
 package com.sachetto.streaming.service;
 
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Service;
 
+import com.sachetto.streaming.dto.ChunkRangeResponseDto;
 import com.sachetto.streaming.exception.ArquivoIOException;
+import com.sachetto.streaming.util.StorageKeys;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -20,40 +25,99 @@ import lombok.extern.slf4j.Slf4j;
 public class ChunkService {
 
     private static final String UPLOAD_KEY_PREFIX = "upload:";
-    private static final String CHUNKS_KEY_SUFFIX = ":chunks";
+    private static final String CHUNKS_KEY_SUFFIX = ":bitmap";
     private static final String TOTAL_CHUNKS_FIELD = "total";
-    private static final String UPLOADS_DIR = "uploads";
 
     private final StringRedisTemplate stringRedisTemplate;
 
+    @Value("${streaming.config.upload.ttl_ms:86400000}")
+    private long uploadTtlMillis;
+
     public void registerUpload(UUID uploadId, Long totalChunks) {
         log.debug("Criando registro de upload de chunks no Redis: uploadId={}, totalChunks={}", uploadId, totalChunks);
         stringRedisTemplate.opsForHash().put(getUploadKey(uploadId), TOTAL_CHUNKS_FIELD, String.valueOf(totalChunks));
+        stringRedisTemplate.expire(getUploadKey(uploadId), Duration.ofMillis(uploadTtlMillis));
     }
 
     public void registerChunk(UUID uploadId, Long chunkIndex) {
         log.debug("Registrando chunk {} no Redis para uploadId={}", chunkIndex, uploadId);
-        stringRedisTemplate.opsForSet().add(getChunksKey(uploadId), String.valueOf(chunkIndex));
+        stringRedisTemplate.opsForValue().setBit(getChunksKey(uploadId), chunkIndex, true);
+        touch(uploadId);
     }
 
-    public List<String> validateAndGetChunkPaths(UUID uploadId) {
-        String uploadKey = getUploadKey(uploadId);
-        String chunksKey = getChunksKey(uploadId);
+    public void touch(UUID uploadId) {
+        Duration ttl = Duration.ofMillis(uploadTtlMillis);
+        stringRedisTemplate.expire(getUploadKey(uploadId), ttl);
+        stringRedisTemplate.expire(getChunksKey(uploadId), ttl);
+    }
+
+    public void persist(UUID uploadId) {
+        stringRedisTemplate.persist(getUploadKey(uploadId));
+        stringRedisTemplate.persist(getChunksKey(uploadId));
+    }
+
+    public boolean isAbandoned(UUID uploadId) {
+        Long ttl = stringRedisTemplate.getExpire(getUploadKey(uploadId));
+        return ttl == null || ttl < 0;
+    }
+
+    public boolean isChunkRegistered(UUID uploadId, Long chunkIndex) {
+        return Boolean.TRUE.equals(stringRedisTemplate.opsForValue().getBit(getChunksKey(uploadId), chunkIndex));
+    }
 
-        Long scard = stringRedisTemplate.opsForSet().size(chunksKey);
-        Long totalChunksInRedis = scard != null ? scard : 0L;
-        
-        Object totalStrObj = stringRedisTemplate.opsForHash().get(uploadKey, TOTAL_CHUNKS_FIELD);
-        Long expectedChunks = totalStrObj != null ? Long.parseLong(totalStrObj.toString()) : 0L;
+    public Long getTotalChunks(UUID uploadId) {
+        Object total = stringRedisTemplate.opsForHash().get(getUploadKey(uploadId), TOTAL_CHUNKS_FIELD);
+        return total != null ? Long.parseLong(total.toString()) : 0L;
+    }
+
+    public Long countChunks(UUID uploadId) {
+        byte[] key = getChunksKey(uploadId).getBytes(StandardCharsets.UTF_8);
+        Long count = stringRedisTemplate.execute((RedisCallback<Long>) connection -> connection.stringCommands().bitCount(key));
+        return count != null ? count : 0L;
+    }
+
+    public List<ChunkRangeResponseDto> getChunkRanges(UUID uploadId) {
+        byte[] key = getChunksKey(uploadId).getBytes(StandardCharsets.UTF_8);
+        byte[] bitmap = stringRedisTemplate.execute((RedisCallback<byte[]>) connection -> connection.stringCommands().get(key));
+
+        List<ChunkRangeResponseDto> ranges = new ArrayList<>();
+        if (bitmap == null) {
+            return ranges;
+        }
+
+        long start = -1;
+        long totalBits = (long) bitmap.length * Byte.SIZE;
+        for (long bit = 0; bit < totalBits; bit++) {
+            boolean set = (bitmap[(int) (bit / Byte.SIZE)] & (0x80 >>> (bit % Byte.SIZE))) != 0;
+            if (set && start < 0) {
+                start = bit;
+            } else if (!set && start >= 0) {
+                ranges.add(new ChunkRangeResponseDto(start, bit - 1));
+                start = -1;
+            }
+        }
+        if (start >= 0) {
+            ranges.add(new ChunkRangeResponseDto(start, totalBits - 1));
+        }
+        return ranges;
+    }
+
+    public List<String> validateAndGetChunkPaths(UUID uploadId) {
+        Long totalChunksInRedis = countChunks(uploadId);
+        Long expectedChunks = getTotalChunks(uploadId);
 
         if (!totalChunksInRedis.equals(expectedChunks)) {
             log.error("Upload incompleto para {}. Esperado: {}, Encontrado: {}", uploadId, expectedChunks, totalChunksInRedis);
             throw new ArquivoIOException();
         }
 
+        return getChunkPaths(uploadId, expectedChunks);
+    }
+
+    public List<String> getChunkPaths(UUID uploadId, Long totalChunks) {
         List<String> chunksPath = new ArrayList<>();
-        for (long i = 1; i <= expectedChunks; i++) {
-            Path chunkPath = Paths.get(UPLOADS_DIR, uploadId.toString(), i + ".mp4");
+        for (long i = 1; i <= totalChunks; i++) {
+            Path chunkPath = StorageKeys.local(StorageKeys.chunk(uploadId, i));
             chunksPath.add(chunkPath.toAbsolutePath().toString());
         }
 
@@ -1,17 +1,21 @@
 package com.sachetto.streaming.service;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.util.UUID;
 
+import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Service;
 
 import com.sachetto.streaming.entity.File;
-import com.sachetto.streaming.entity.Usuario;
 import com.sachetto.streaming.repository.FileRepository;
-import com.sachetto.streaming.repository.UsuarioRepository;
 import com.sachetto.streaming.exception.ArquivoIOException;
+import com.sachetto.streaming.service.ExportService.ExportJob;
+import com.sachetto.streaming.service.FFmpegProcessPool.JobClass;
+import com.sachetto.streaming.service.PlaylistManifestService.EncodedPlaylist;
+import com.sachetto.streaming.service.WatermarkSegmentCache.SegmentKey;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -21,72 +25,71 @@ import lombok.extern.slf4j.Slf4j;
 @RequiredArgsConstructor
 public class DownloadService {
 
-    private static final String UPLOADS_DIR = "uploads";
+    private static final Long USUARIO_MOCK_ID = 1L;
 
-	private final UsuarioRepository usuarioRepository;
 	private final FileRepository fileRepository;
     private final StorageService storageService;
     private final WatermarkService watermarkService;
-    private final FFmpegService ffmpegService;
+    private final ForensicVariantService forensicVariantService;
+    private final SegmentRenderService segmentRenderService;
+    private final SegmentPrefetchService segmentPrefetchService;
+    private final PlaylistManifestService playlistManifestService;
+    private final ExportService exportService;
+
+    public EncodedPlaylist getPlaylist(UUID uploadId) {
+        EncodedPlaylist master = playlistManifestService.master(uploadId);
+        if (master != null) {
+            return master;
+        }
+        return getPlaylist(uploadId, null);
+    }
 
-    public Resource getPlaylist(UUID uploadId) {
-        Path path = Paths.get(UPLOADS_DIR, uploadId.toString(), "playlist.m3u8");
-        log.debug("Loading playlist from: {}", path);
-        return storageService.load(path.toString());
+    public EncodedPlaylist getPlaylist(UUID uploadId, String rendition) {
+        String codigo = watermarkService.criarOuRecuperar(USUARIO_MOCK_ID, uploadId);
+        return playlistManifestService.encoded(uploadId, rendition, codigo);
     }
     
-    public Resource getSegment(UUID uploadId, String segmentName) {
-        Path originalPath = Paths.get(UPLOADS_DIR, uploadId.toString(), segmentName);
-        Path watermarkDir = Paths.get(UPLOADS_DIR, uploadId.toString(), "watermarked");
-        Path watermarkPath = watermarkDir.resolve(segmentName);
-
-        log.debug("Requesting segment: {}", segmentName);
-
-        try {
-            if (java.nio.file.Files.exists(watermarkPath)) {
-                log.debug("Serving cached watermarked segment: {}", watermarkPath);
-                return storageService.load(watermarkPath.toString());
-            }
-
-            if (java.nio.file.Files.notExists(watermarkDir)) {
-                java.nio.file.Files.createDirectories(watermarkDir);
-            }
-
-            log.info("Generating watermark for segment: {}", segmentName);
-            
-            Usuario usuario = usuarioRepository.findById(1L).orElseThrow(); // mock usuário
-            File file = fileRepository.findById(uploadId).orElseThrow();
-            
-            String codigo = watermarkService.criarOuRecuperar(usuario, file);
-            ffmpegService.addWatermark(originalPath, watermarkPath, codigo);
-            return storageService.load(watermarkPath.toString());
-        } catch (java.io.IOException e) {
-            log.error("Error handling watermark for segment: {}", segmentName, e);
-            log.warn("Falling back to original segment due to watermark error");
-            return storageService.load(originalPath.toString());
+    public Resource getSegment(UUID uploadId, String rendition, String segmentName) {
+        log.debug("Requesting segment: {} (rendition: {})", segmentName, rendition);
+
+        String codigo = watermarkService.criarOuRecuperar(USUARIO_MOCK_ID, uploadId);
+        if (forensicVariantService.isAvailable(uploadId)) {
+            return storageService.load(forensicSegment(uploadId, codigo, rendition, segmentName));
         }
+
+        SegmentKey key = new SegmentKey(uploadId, codigo, rendition, segmentName);
+
+        boolean cached = segmentRenderService.isCached(key);
+        long inicio = System.nanoTime();
+        Path watermarkPath = segmentRenderService.getOrRender(key);
+        if (!cached) {
+            segmentPrefetchService.recordStall(uploadId, rendition, segmentName, System.nanoTime() - inicio);
+        }
+
+        segmentPrefetchService.schedule(uploadId, codigo, rendition, segmentName);
+        return new FileSystemResource(watermarkPath);
     }
 
-    public Resource exportFile(UUID uploadId) {
-        Path playlistPath = Paths.get(UPLOADS_DIR, uploadId.toString(), "playlist.m3u8");
-        Path exportPath = Paths.get(UPLOADS_DIR, uploadId.toString(), "export.mp4");
+    public ExportJob exportFile(UUID uploadId) {
+        String codigo = watermarkService.criarOuRecuperar(USUARIO_MOCK_ID, uploadId);
+        String rendition = playlistManifestService.sourceRendition(uploadId);
+        boolean forensic = forensicVariantService.isAvailable(uploadId);
 
-        log.debug("Requesting export: {}", exportPath);
+        return exportService.start(uploadId, codigo, segmentName -> forensic
+                ? storageService.localPath(forensicSegment(uploadId, codigo, rendition, segmentName))
+                : segmentRenderService.getOrRender(new SegmentKey(uploadId, codigo, rendition, segmentName), JobClass.EXPORT_RENDER));
+    }
 
-        if (java.nio.file.Files.exists(exportPath)) {
-		    log.debug("Serving cached export: {}", exportPath);
-		    return storageService.load(exportPath.toString());
-		}
+    public ExportJob exportStatus(UUID uploadId) {
+        return exportService.status(uploadId, watermarkService.criarOuRecuperar(USUARIO_MOCK_ID, uploadId));
+    }
 
-		log.info("Generating export for uploadId: {}", uploadId);
-		
-		Usuario usuario = usuarioRepository.findById(1L).orElseThrow();
-		File file = fileRepository.findById(uploadId).orElseThrow();
-		String codigo = watermarkService.criarOuRecuperar(usuario, file);
-		
-		ffmpegService.export(playlistPath, exportPath, codigo);
+    public Resource exportResource(ExportJob job) {
+        return new FileSystemResource(job.getTarget());
+    }
 
-		return storageService.load(exportPath.toString());
+    public void streamExport(ExportJob job, OutputStream out) throws IOException {
+        exportService.stream(job, out);
     }
 
     public Resource getThumbnail(UUID uploadId) {
@@ -98,4 +101,13 @@ public class DownloadService {
 
         return storageService.load(file.getThumbnail());
     }
+
+    private String forensicSegment(UUID uploadId, String codigo, String rendition, String segmentName) {
+        int segmentIndex = playlistManifestService.segmentNames(uploadId, rendition).indexOf(segmentName);
+        if (segmentIndex < 0) {
+            throw new ArquivoIOException();
+        }
+        char variante = watermarkService.variante(codigo, segmentIndex);
+        return forensicVariantService.key(uploadId, rendition, segmentName, variante);
+    }
 }
@@ -0,0 +1,260 @@
+package com.sachetto.streaming.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.sachetto.streaming.entity.TranscodeJobStatus;
+import com.sachetto.streaming.exception.ArquivoIOException;
+import com.sachetto.streaming.exception.ComandoFFMpegException;
+import com.sachetto.streaming.exception.FFmpegSaturadoException;
+import com.sachetto.streaming.util.StorageKeys;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ExportService {
+
+    private static final String EXPORTS_DIR = "exports";
+    private static final String TEMP_PREFIX = ".tmp_";
+    private static final long POLL_MS = 200;
+    private static final int MAX_TENTATIVAS_SATURADO = 10;
+    private static final long RETRY_AFTER_SECONDS = 5;
+
+    private record ExportKey(UUID uploadId, String codigo) { }
+
+    @Getter
+    public static final class ExportJob {
+        private final UUID uploadId;
+        private final Path target;
+        private final Path temp;
+        private volatile TranscodeJobStatus status = TranscodeJobStatus.PENDING;
+        private volatile int progress;
+        private volatile String error;
+
+        private ExportJob(UUID uploadId, Path target) {
+            this.uploadId = uploadId;
+            this.target = target;
+            this.temp = target.resolveSibling(TEMP_PREFIX + target.getFileName());
+        }
+
+        public boolean isDone() {
+            return status == TranscodeJobStatus.SUCCESS || status == TranscodeJobStatus.FAILED;
+        }
+
+        private synchronized void awaitProgress() throws InterruptedException {
+            if (!isDone()) {
+                wait(POLL_MS);
+            }
+        }
+
+        private synchronized void signal() {
+            notifyAll();
+        }
+    }
+
+    private final PlaylistManifestService playlistManifestService;
+    private final FFmpegService ffmpegService;
+
+    private final Map<ExportKey, ExportJob> jobs = new ConcurrentHashMap<>();
+    private ThreadPoolExecutor executor;
+
+    @Value("${streaming.config.export.workers:2}")
+    private int workers;
+
+    @Value("${streaming.config.export.queue_capacity:16}")
+    private int queueCapacity;
+
+    @Value("${streaming.config.chunk.buffer_size:65536}")
+    private int bufferSize;
+
+    @PostConstruct
+    void start() {
+        executor = new ThreadPoolExecutor(
+                workers, workers,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                Thread.ofPlatform().name("export-", 0).daemon(true).factory());
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdownNow();
+    }
+
+    public ExportJob status(UUID uploadId, String codigo) {
+        ExportJob job = jobs.get(new ExportKey(uploadId, codigo));
+        if (job != null) {
+            return job;
+        }
+        ExportJob cached = new ExportJob(uploadId, target(uploadId, codigo));
+        if (Files.exists(cached.target)) {
+            cached.status = TranscodeJobStatus.SUCCESS;
+            cached.progress = 100;
+        }
+        return cached;
+    }
+
+    public ExportJob start(UUID uploadId, String codigo, Function<String, Path> segmentResolver) {
+        ExportKey key = new ExportKey(uploadId, codigo);
+        ExportJob existing = status(uploadId, codigo);
+        if (existing.status == TranscodeJobStatus.SUCCESS) {
+            return existing;
+        }
+
+        ExportJob job = new ExportJob(uploadId, target(uploadId, codigo));
+        ExportJob current = jobs.compute(key, (_, previous) ->
+                previous != null && previous.status != TranscodeJobStatus.FAILED ? previous : job);
+        if (current != job) {
+            return current;
+        }
+
+        String rendition = playlistManifestService.sourceRendition(uploadId);
+        List<String> segmentNames = playlistManifestService.segmentNames(uploadId, rendition);
+        try {
+            executor.execute(() -> run(key, job, segmentNames, segmentResolver));
+        } catch (RejectedExecutionException _) {
+            jobs.remove(key, job);
+            log.warn("Fila de export cheia, rejeitando export de {}", uploadId);
+            throw new FFmpegSaturadoException(RETRY_AFTER_SECONDS);
+        }
+        log.info("Export de {} agendado ({} segmentos)", uploadId, segmentNames.size());
+        return job;
+    }
+
+    public void stream(ExportJob job, OutputStream out) throws IOException {
+        try (FileChannel channel = open(job)) {
+            ByteBuffer buffer = ByteBuffer.allocate(bufferSize);
+            while (true) {
+                boolean done = job.isDone();
+                int read = channel.read(buffer);
+                if (read > 0) {
+                    out.write(buffer.array(), 0, read);
+                    buffer.clear();
+                } else if (done) {
+                    break;
+                } else {
+                    out.flush();
+                    job.awaitProgress();
+                }
+            }
+        } catch (InterruptedException _) {
+            Thread.currentThread().interrupt();
+            throw new ArquivoIOException();
+        }
+
+        if (job.status == TranscodeJobStatus.FAILED) {
+            throw new ComandoFFMpegException();
+        }
+        out.flush();
+    }
+
+    private FileChannel open(ExportJob job) throws IOException, InterruptedException {
+        while (true) {
+            try {
+                return FileChannel.open(job.status == TranscodeJobStatus.SUCCESS ? job.target : job.temp);
+            } catch (NoSuchFileException e) {
+                if (job.status == TranscodeJobStatus.FAILED) {
+                    throw new ComandoFFMpegException();
+                }
+                if (Files.exists(job.target)) {
+                    return FileChannel.open(job.target);
+                }
+                job.awaitProgress();
+            }
+        }
+    }
+
+    private void run(ExportKey key, ExportJob job, List<String> segmentNames, Function<String, Path> segmentResolver) {
+        job.status = TranscodeJobStatus.RUNNING;
+        Process process = null;
+        try {
+            Files.createDirectories(job.target.getParent());
+            process = saturadoRetry(() -> ffmpegService.startFragmentedMp4Remux(job.temp, job.uploadId.toString()));
+
+            try (OutputStream stdin = process.getOutputStream()) {
+                for (int i = 0; i < segmentNames.size(); i++) {
+                    String segmentName = segmentNames.get(i);
+                    Files.copy(saturadoRetry(() -> segmentResolver.apply(segmentName)), stdin);
+                    job.progress = (int) ((i + 1) * 99L / segmentNames.size());
+                    job.signal();
+                }
+            }
+
+            int exitCode = process.waitFor();
+            if (exitCode != 0) {
+                log.error("Remux de export de {} terminou com código {}", job.uploadId, exitCode);
+                throw new ComandoFFMpegException();
+            }
+
+            Files.move(job.temp, job.target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            job.progress = 100;
+            job.status = TranscodeJobStatus.SUCCESS;
+            jobs.remove(key, job);
+            log.info("Export concluído com sucesso: {}", job.target);
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            log.error("Erro ao exportar vídeo {}", job.uploadId, e);
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            if (process != null) {
+                process.destroyForcibly();
+            }
+            job.error = e.getMessage();
+            job.status = TranscodeJobStatus.FAILED;
+            deleteQuietly(job.temp);
+        } finally {
+            job.signal();
+        }
+    }
+
+    private <T> T saturadoRetry(Supplier<T> action) throws InterruptedException {
+        for (int tentativa = 1; ; tentativa++) {
+            try {
+                return action.get();
+            } catch (FFmpegSaturadoException e) {
+                if (tentativa >= MAX_TENTATIVAS_SATURADO) {
+                    throw e;
+                }
+                log.debug("FFmpeg saturado durante export, nova tentativa em {}s", e.getRetryAfterSeconds());
+                Thread.sleep(TimeUnit.SECONDS.toMillis(e.getRetryAfterSeconds()));
+            }
+        }
+    }
+
+    private Path target(UUID uploadId, String codigo) {
+        return StorageKeys.local(uploadId, EXPORTS_DIR, codigo + ".mp4");
+    }
+
+    private void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Erro ao remover arquivo temporário: {}", path, e);
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package com.sachetto.streaming.service;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.sachetto.streaming.exception.ArquivoIOException;
+import com.sachetto.streaming.exception.FFmpegSaturadoException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class FFmpegProcessPool {
+
+    public enum JobClass {
+        SEGMENT_WATERMARK(true, true),
+        HLS_PACKAGING(false, true),
+        EXPORT(true, true),
+        EXPORT_RENDER(false, true),
+        SEGMENT_PREFETCH(false, true),
+        INCREMENTAL_PACKAGING(false, false);
+
+        private final boolean interactive;
+        private final boolean shared;
+
+        JobClass(boolean interactive, boolean shared) {
+            this.interactive = interactive;
+            this.shared = shared;
+        }
+
+        private String tag() {
+            return name().toLowerCase();
+        }
+    }
+
+    private record Waiter(JobClass jobClass, long seq) implements Comparable<Waiter> {
+
+        @Override
+        public int compareTo(Waiter other) {
+            int byClass = Integer.compare(jobClass.ordinal(), other.jobClass.ordinal());
+            return byClass != 0 ? byClass : Long.compare(seq, other.seq);
+        }
+    }
+
+    private final MeterRegistry meterRegistry;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final PriorityQueue<Waiter> waiters = new PriorityQueue<>();
+    private final Map<JobClass, Integer> running = new EnumMap<>(JobClass.class);
+    private final Map<JobClass, Integer> queued = new EnumMap<>(JobClass.class);
+    private final Map<JobClass, Integer> limits = new EnumMap<>(JobClass.class);
+    private final Map<JobClass, Timer> waitTimers = new EnumMap<>(JobClass.class);
+    private final Map<JobClass, Timer> runTimers = new EnumMap<>(JobClass.class);
+    private final Map<JobClass, Counter> rejected = new EnumMap<>(JobClass.class);
+    private final AtomicLong sequence = new AtomicLong();
+    private int totalRunning;
+    private int maxProcesses;
+
+    @Value("${streaming.config.ffmpeg.max_processes:0}")
+    private int maxProcessesConfig;
+
+    @Value("${streaming.config.ffmpeg.watermark_max:0}")
+    private int watermarkMax;
+
+    @Value("${streaming.config.ffmpeg.packaging_max:0}")
+    private int packagingMax;
+
+    @Value("${streaming.config.ffmpeg.export_max:1}")
+    private int exportMax;
+
+    @Value("${streaming.config.ffmpeg.export_render_max:1}")
+    private int exportRenderMax;
+
+    @Value("${streaming.config.ffmpeg.prefetch_max:0}")
+    private int prefetchMax;
+
+    @Value("${streaming.config.ffmpeg.incremental_max:0}")
+    private int incrementalMax;
+
+    @Value("${streaming.config.ffmpeg.queue_capacity:64}")
+    private int queueCapacity;
+
+    @Value("${streaming.config.ffmpeg.max_wait_ms:5000}")
+    private long maxWaitMillis;
+
+    @PostConstruct
+    void init() {
+        int cores = Runtime.getRuntime().availableProcessors();
+        maxProcesses = maxProcessesConfig > 0 ? maxProcessesConfig : cores;
+        limits.put(JobClass.SEGMENT_WATERMARK, watermarkMax > 0 ? watermarkMax : maxProcesses);
+        limits.put(JobClass.HLS_PACKAGING, packagingMax > 0 ? packagingMax : Math.max(1, maxProcesses / 2));
+        limits.put(JobClass.EXPORT, Math.max(1, exportMax));
+        limits.put(JobClass.EXPORT_RENDER, Math.max(1, exportRenderMax));
+        limits.put(JobClass.SEGMENT_PREFETCH, prefetchMax > 0 ? prefetchMax : Math.max(1, maxProcesses / 2));
+        limits.put(JobClass.INCREMENTAL_PACKAGING, incrementalMax > 0 ? incrementalMax : Math.max(1, maxProcesses / 2));
+
+        for (JobClass jobClass : JobClass.values()) {
+            running.put(jobClass, 0);
+            queued.put(jobClass, 0);
+            Gauge.builder("streaming.ffmpeg.queue.depth", queued, map -> queuedCount(jobClass))
+                    .tag("class", jobClass.tag()).register(meterRegistry);
+            Gauge.builder("streaming.ffmpeg.running", running, map -> runningCount(jobClass))
+                    .tag("class", jobClass.tag()).register(meterRegistry);
+            waitTimers.put(jobClass, Timer.builder("streaming.ffmpeg.wait").tag("class", jobClass.tag()).register(meterRegistry));
+            runTimers.put(jobClass, Timer.builder("streaming.ffmpeg.run").tag("class", jobClass.tag()).register(meterRegistry));
+            rejected.put(jobClass, Counter.builder("streaming.ffmpeg.rejected").tag("class", jobClass.tag()).register(meterRegistry));
+        }
+        log.info("Pool de processos FFmpeg com {} processos simultâneos e limites por classe {}", maxProcesses, limits);
+    }
+
+    public Process start(JobClass jobClass, ProcessBuilder pb) throws IOException {
+        if (jobClass == JobClass.SEGMENT_PREFETCH) {
+            // Pré-render é especulativo: só roda com vaga livre e nunca entra na fila à frente de espectadores
+            return tryStart(jobClass, pb);
+        }
+        long inicio = System.nanoTime();
+        acquire(jobClass);
+        waitTimers.get(jobClass).record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+        return launch(jobClass, pb);
+    }
+
+    public Process tryStart(JobClass jobClass, ProcessBuilder pb) throws IOException {
+        lock.lock();
+        try {
+            if (!canRun(new Waiter(jobClass, sequence.incrementAndGet()))) {
+                throw reject(jobClass);
+            }
+            occupy(jobClass);
+        } finally {
+            lock.unlock();
+        }
+        return launch(jobClass, pb);
+    }
+
+    private Process launch(JobClass jobClass, ProcessBuilder pb) throws IOException {
+        Process process;
+        try {
+            process = pb.start();
+        } catch (IOException | RuntimeException e) {
+            release(jobClass);
+            throw e;
+        }
+
+        long inicio = System.nanoTime();
+        process.onExit().whenComplete((_, _) -> {
+            runTimers.get(jobClass).record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+            release(jobClass);
+        });
+        return process;
+    }
+
+    private void acquire(JobClass jobClass) {
+        lock.lock();
+        try {
+            Waiter waiter = new Waiter(jobClass, sequence.incrementAndGet());
+            if (canRun(waiter)) {
+                occupy(jobClass);
+                return;
+            }
+            if (jobClass.interactive && waiters.size() >= queueCapacity) {
+                throw reject(jobClass);
+            }
+
+            waiters.add(waiter);
+            queued.merge(jobClass, 1, Integer::sum);
+            long restante = TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+            try {
+                while (!canRun(waiter)) {
+                    if (!jobClass.interactive) {
+                        changed.await();
+                    } else if (restante <= 0) {
+                        throw reject(jobClass);
+                    } else {
+                        restante = changed.awaitNanos(restante);
+                    }
+                }
+                occupy(jobClass);
+            } finally {
+                waiters.remove(waiter);
+                queued.merge(jobClass, -1, Integer::sum);
+                changed.signalAll();
+            }
+        } catch (InterruptedException _) {
+            Thread.currentThread().interrupt();
+            throw new ArquivoIOException();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void release(JobClass jobClass) {
+        lock.lock();
+        try {
+            running.merge(jobClass, -1, Integer::sum);
+            if (jobClass.shared) {
+                totalRunning--;
+            }
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean canRun(Waiter waiter) {
+        if (!waiter.jobClass().shared) {
+            return hasCapacity(waiter.jobClass());
+        }
+        return hasCapacity(waiter.jobClass())
+                && waiters.stream().noneMatch(other -> other.jobClass().shared && other.compareTo(waiter) < 0 && hasCapacity(other.jobClass()));
+    }
+
+    // Sessões incrementais ficam abertas durante todo o upload: têm limite próprio e não ocupam vagas das demais classes
+    private boolean hasCapacity(JobClass jobClass) {
+        return (!jobClass.shared || totalRunning < maxProcesses) && running.get(jobClass) < limits.get(jobClass);
+    }
+
+    private void occupy(JobClass jobClass) {
+        running.merge(jobClass, 1, Integer::sum);
+        if (jobClass.shared) {
+            totalRunning++;
+        }
+    }
+
+    private FFmpegSaturadoException reject(JobClass jobClass) {
+        rejected.get(jobClass).increment();
+        if (jobClass == JobClass.SEGMENT_PREFETCH) {
+            log.debug("Pool de FFmpeg sem vaga livre, descartando pré-render");
+        } else {
+            log.warn("Pool de FFmpeg saturado, rejeitando processo da classe {}", jobClass);
+        }
+        return new FFmpegSaturadoException(Math.max(1, TimeUnit.MILLISECONDS.toSeconds(maxWaitMillis)));
+    }
+
+    private int queuedCount(JobClass jobClass) {
+        lock.lock();
+        try {
+            return queued.get(jobClass);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int runningCount(JobClass jobClass) {
+        lock.lock();
+        try {
+            return running.get(jobClass);
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -1,17 +1,27 @@
 package com.sachetto.streaming.service;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.DoubleConsumer;
 import java.util.stream.Stream;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import com.sachetto.streaming.config.RenditionLadder;
+import com.sachetto.streaming.config.RenditionLadder.Rendition;
 import com.sachetto.streaming.exception.ArquivoIOException;
 import com.sachetto.streaming.exception.ComandoFFMpegException;
+import com.sachetto.streaming.service.FFmpegProcessPool.JobClass;
+import com.sachetto.streaming.util.ForensicCode;
+import com.sachetto.streaming.util.StorageKeys;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -21,16 +31,38 @@ import lombok.extern.slf4j.Slf4j;
 @RequiredArgsConstructor
 public class FFmpegService {
 
-    private static final String UPLOADS_DIR = "uploads";
     private static final String FFMPEG_CMD = "ffmpeg";
-    private static final String FAVICON_CLASSPATH = "classpath:static/favicon.ico";
-    private static final String FAVICON_FALLBACK_PATH = "src/main/resources/static/favicon.ico";
+    private static final String FFPROBE_CMD = "ffprobe";
+    private static final String PLAYLIST_BASE_NAME = "playlist";
+    private static final String SEGMENT_BASE_NAME = "video";
+    private static final String VARIANT_PLACEHOLDER = "%v";
     private static final String WATERMARK_FILTER_BASE = "[1:v]scale=50:-1[logo]; [0:v][logo]overlay=W-w-15:H-h-15";
     private static final String CODEC_H264 = "libx264";
+    private static final String FORENSIC_MARK_OPACITY = "0.06";
+    private static final int FORENSIC_PROBE_WIDTH = 192;
+    private static final int FORENSIC_PROBE_HEIGHT = 108;
+    private static final int FORENSIC_PROBE_SAMPLE = 2;
+    private static final String PROGRESS_OUT_TIME = "out_time_us=";
+
+    private final RenditionLadder renditionLadder;
+    private final WatermarkOverlayService watermarkOverlayService;
+    private final FFmpegProcessPool processPool;
+
+    @Value("${streaming.config.hls.segment_seconds:4}")
+    private int segmentSeconds;
+
+    @Value("${streaming.config.watermark.preset:ultrafast}")
+    private String watermarkPreset;
+
+    @Value("${streaming.config.watermark.tune:zerolatency}")
+    private String watermarkTune;
+
+    @Value("${streaming.config.watermark.threads:2}")
+    private int watermarkThreads;
 
     public Stream<Path> split(java.io.File inputFile, UUID uploadId) {
         log.info("Iniciando split do arquivo: {} para uploadId: {}", inputFile.getName(), uploadId);
-        Path outputDirPath = Paths.get(UPLOADS_DIR, uploadId.toString());
+        Path outputDirPath = StorageKeys.local(uploadId);
 
         try {
             if (Files.notExists(outputDirPath)) {
@@ -52,7 +84,7 @@ public class FFmpegService {
 
             pb.redirectErrorStream(true);
             log.info("Executando comando FFmpeg...");
-            Process process = pb.start();
+            Process process = processPool.start(JobClass.HLS_PACKAGING, pb);
 
             int exitCode = process.waitFor();
             if (exitCode != 0) {
@@ -72,9 +104,9 @@ public class FFmpegService {
         }
     }
     
-    public void formatHLS(List<String> chunksPath, UUID uploadId) {
+    public void formatHLS(List<String> chunksPath, UUID uploadId, List<Rendition> renditions, DoubleConsumer onProgress) {
         log.info("Iniciando formatação do HLS para uploadId: {}", uploadId);
-        Path outputDirPath = Paths.get(UPLOADS_DIR, uploadId.toString());
+        Path outputDirPath = StorageKeys.local(uploadId);
         
         try {
             if (Files.notExists(outputDirPath)) {
@@ -88,31 +120,25 @@ public class FFmpegService {
             }
             Files.write(listFilePath, listContent.toString().getBytes());
 
-            String playlistPath = outputDirPath.toAbsolutePath().resolve("playlist.m3u8").toString();
-            
-            ProcessBuilder pb = new ProcessBuilder(
+            boolean hasAudio = !chunksPath.isEmpty() && hasAudio(Paths.get(chunksPath.getFirst()));
+
+            List<String> cmdList = new ArrayList<>(List.of(
                 FFMPEG_CMD,
                 "-f", "concat",
                 "-safe", "0",
-                "-i", listFilePath.toAbsolutePath().toString(),
-                "-c:v", CODEC_H264,
-                "-preset", "veryfast",
-                "-g", "60",
-                "-keyint_min", "60",
-                "-sc_threshold", "0",
-                "-c:a", "copy",
-                "-hls_time", "4",
-                "-hls_list_size", "0",
-                "-hls_flags", "independent_segments",
-                "-f", "hls",
-                playlistPath
-            );
+                "-i", listFilePath.toAbsolutePath().toString()
+            ));
+            cmdList.addAll(encodeArgs(hasAudio, renditions, gopArgs()));
+            cmdList.addAll(hlsArgs(outputDirPath, renditions, PLAYLIST_BASE_NAME, SEGMENT_BASE_NAME, "independent_segments"));
+            cmdList.addAll(List.of("-progress", "pipe:1", "-nostats"));
+
+            ProcessBuilder pb = new ProcessBuilder(cmdList);
 
             pb.redirectErrorStream(true);
             log.info("Executando comando FFmpeg para HLS...");
-            Process process = pb.start();
+            Process process = processPool.start(JobClass.HLS_PACKAGING, pb);
 
-            logProcessOutput(process, "FFmpeg:");
+            logProcessOutput(process, "FFmpeg:", onProgress);
 
             int exitCode = process.waitFor();
             if (exitCode != 0) {
@@ -122,9 +148,7 @@ public class FFmpegService {
             
             log.info("HLS formatado com sucesso. Removendo chunks...");
             
-            for (String chunk : chunksPath) {
-                deleteChunk(chunk);
-            }
+            deleteChunks(chunksPath);
             
             Files.deleteIfExists(listFilePath);
         } catch (IOException | InterruptedException e) {
@@ -134,43 +158,147 @@ public class FFmpegService {
         }
     }
 
-    public void addWatermark(Path inputPath, Path outputPath, String code) {
-        log.info("Adicionando marca d'água em: {}", inputPath.getFileName());
+    public void transcodeHlsPart(Path chunkPath, UUID uploadId, long part, int threads, boolean hasAudio, List<Rendition> renditions,
+            Consumer<Process> onStart) {
+        log.debug("Transcodificando parte {} do uploadId: {}", part, uploadId);
+        Path outputDirPath = StorageKeys.local(uploadId);
+        String prefix = partName(part);
+
         try {
-            String faviconPath = getFaviconPath();
+            List<String> cmdList = new ArrayList<>(List.of(
+                FFMPEG_CMD,
+                "-y",
+                "-copyts",
+                "-i", chunkPath.toAbsolutePath().toString()
+            ));
+            cmdList.addAll(encodeArgs(hasAudio, renditions, List.of(
+                "-preset", "veryfast",
+                "-threads", String.valueOf(threads),
+                "-force_key_frames", "expr:if(isnan(prev_forced_t),1,gte(t,prev_forced_t+" + segmentSeconds + "))",
+                "-sc_threshold", "0",
+                "-muxdelay", "0"
+            )));
+            cmdList.addAll(hlsArgs(outputDirPath, renditions, prefix, prefix, "independent_segments"));
+
+            ProcessBuilder pb = new ProcessBuilder(cmdList);
+
+            pb.redirectErrorStream(true);
+            Process process = processPool.start(JobClass.HLS_PACKAGING, pb);
+            onStart.accept(process);
+
+            StringBuilder outputLog = new StringBuilder();
+            logProcessOutputAndAppend(process, "FFmpeg parte " + part + ":", outputLog);
 
-            java.io.File faviconFile = new java.io.File(faviconPath);
-            if (!faviconFile.exists()) {
-                log.error("Favicon não encontrado em: {}", faviconPath);
-                throw new java.io.FileNotFoundException("Favicon não encontrado: " + faviconPath);
+            int exitCode = process.waitFor();
+            if (exitCode != 0) {
+                log.error("Erro ao transcodificar parte {}. Código de saída: {}", part, exitCode);
+                log.error("FFmpeg Output/Error: {}", outputLog);
+                throw new ComandoFFMpegException();
             }
+        } catch (IOException | InterruptedException e) {
+            log.error("Erro ao transcodificar parte {} do uploadId: {}", part, uploadId, e);
+            Thread.currentThread().interrupt();
+            throw new ArquivoIOException();
+        }
+    }
+
+    public static String partName(long part) {
+        return String.format("part%05d", part);
+    }
+
+    public Process startHlsPackager(UUID uploadId, boolean hasAudio, List<Rendition> renditions, DoubleConsumer onProgress) {
+        log.info("Iniciando empacotamento HLS incremental para uploadId: {}", uploadId);
+        Path outputDirPath = StorageKeys.local(uploadId);
 
-            String filterComplex = WATERMARK_FILTER_BASE;
-            Path tempWatermarkImage = null;
-
-            java.util.List<String> cmdList = new java.util.ArrayList<>();
-            cmdList.add(FFMPEG_CMD);
-            cmdList.add("-y");
-            cmdList.add("-copyts");
-            cmdList.add("-i");
-            cmdList.add(inputPath.toAbsolutePath().toString());
-            cmdList.add("-i");
-            cmdList.add(faviconPath);
-
-            if (code != null && !code.isEmpty()) {
-                tempWatermarkImage = createRoundedWatermarkText(code);
-                cmdList.add("-i");
-                cmdList.add(tempWatermarkImage.toAbsolutePath().toString());
-                filterComplex += "[v1];[v1][2:v]overlay=10:10";
+        try {
+            if (Files.notExists(outputDirPath)) {
+                Files.createDirectories(outputDirPath);
             }
 
-            log.debug("Usando favicon: {}", faviconPath);
+            List<String> cmdList = new ArrayList<>(List.of(
+                FFMPEG_CMD,
+                "-y",
+                "-f", "mpegts",
+                "-i", "pipe:0"
+            ));
+            cmdList.addAll(encodeArgs(hasAudio, renditions, gopArgs()));
+            cmdList.add("-hls_playlist_type");
+            cmdList.add("event");
+            cmdList.addAll(hlsArgs(outputDirPath, renditions, PLAYLIST_BASE_NAME, SEGMENT_BASE_NAME, "independent_segments+temp_file"));
+            cmdList.addAll(List.of("-progress", "pipe:1", "-nostats"));
 
-            cmdList.addAll(java.util.Arrays.asList(
-                "-filter_complex", filterComplex,
-                "-c:v", CODEC_H264,
-                "-crf", "20",
-                "-an", 
+            ProcessBuilder pb = new ProcessBuilder(cmdList);
+
+            pb.redirectErrorStream(true);
+            Process process = processPool.tryStart(JobClass.INCREMENTAL_PACKAGING, pb);
+
+            Thread.ofPlatform().name("hls-packager-" + uploadId).daemon(true).start(() -> {
+                try {
+                    logProcessOutput(process, "FFmpeg HLS incremental:", onProgress);
+                } catch (IOException e) {
+                    log.debug("Saída do empacotador HLS encerrada para uploadId: {}", uploadId, e);
+                }
+            });
+            return process;
+        } catch (IOException e) {
+            log.error("Erro ao iniciar empacotamento HLS incremental", e);
+            throw new ArquivoIOException();
+        }
+    }
+
+    public void remuxToMpegts(Path chunkPath, java.io.OutputStream target) {
+        log.debug("Remuxando chunk para MPEG-TS: {}", chunkPath.getFileName());
+        try {
+            ProcessBuilder pb = new ProcessBuilder(
+                FFMPEG_CMD,
+                "-loglevel", "error",
+                "-copyts",
+                "-i", chunkPath.toAbsolutePath().toString(),
+                "-map", "0",
+                "-c", "copy",
+                "-muxdelay", "0",
+                "-muxpreload", "0",
+                "-f", "mpegts",
+                "pipe:1"
+            );
+
+            // Remux com -c copy alimenta um empacotador que já ocupa vaga no pool; passar pelo pool aqui causaria deadlock
+            pb.redirectError(ProcessBuilder.Redirect.DISCARD);
+            Process process = pb.start();
+
+            try (java.io.InputStream is = process.getInputStream()) {
+                is.transferTo(target);
+            }
+            target.flush();
+
+            int exitCode = process.waitFor();
+            if (exitCode != 0) {
+                log.error("Erro ao remuxar chunk {}. Código de saída: {}", chunkPath.getFileName(), exitCode);
+                throw new ComandoFFMpegException();
+            }
+        } catch (IOException | InterruptedException e) {
+            log.error("Erro ao remuxar chunk: {}", chunkPath, e);
+            Thread.currentThread().interrupt();
+            throw new ArquivoIOException();
+        }
+    }
+
+    public void deleteChunks(List<String> chunksPath) {
+        for (String chunk : chunksPath) {
+            deleteChunk(chunk);
+        }
+    }
+
+    public void addWatermark(Path inputPath, Path outputPath, String code, String rendition, JobClass jobClass) {
+        log.info("Adicionando marca d'água em: {}", inputPath.getFileName());
+        Path overlay = code != null && !code.isEmpty() ? watermarkOverlayService.acquire(code) : null;
+        try {
+            List<String> cmdList = new ArrayList<>(watermarkInputArgs(inputPath, overlay, null));
+            cmdList.addAll(List.of("-c:v", CODEC_H264));
+            cmdList.addAll(watermarkProfileArgs());
+            cmdList.addAll(rateArgs(rendition));
+            cmdList.addAll(List.of(
+                "-c:a", "copy",
                 "-muxdelay", "0",
                 outputPath.toAbsolutePath().toString()
             ));
@@ -178,19 +306,12 @@ public class FFmpegService {
             ProcessBuilder pb = new ProcessBuilder(cmdList);
 
             pb.redirectErrorStream(true);
-            Process process = pb.start();
+            Process process = processPool.start(jobClass, pb);
 
             StringBuilder outputLog = new StringBuilder();
             logProcessOutputAndAppend(process, "FFmpeg Watermark:", outputLog);
 
             int exitCode = process.waitFor();
-
-            if (tempWatermarkImage != null) {
-                try {
-                    Files.deleteIfExists(tempWatermarkImage);
-                } catch (Exception ignored) {}
-            }
-
             if (exitCode != 0) {
                 log.error("Erro ao aplicar watermark. Cód: {}. Check logs for details.", exitCode);
                 log.error("FFmpeg Output/Error: {}", outputLog.toString());
@@ -202,44 +323,21 @@ public class FFmpegService {
             log.error("Erro ao aplicar watermark", e);
             Thread.currentThread().interrupt();
             throw new ArquivoIOException();
+        } finally {
+            if (overlay != null) {
+                watermarkOverlayService.release(overlay);
+            }
         }
     }
     
-    public void export(Path inputPath, Path outputPath, String code) {
-        log.info("Exporting video with watermark: {}", inputPath.getFileName());
-        try {          
-            String faviconPath = getFaviconPath();
-
-            java.io.File faviconFile = new java.io.File(faviconPath);
-            if (!faviconFile.exists()) {
-                log.error("Favicon não encontrado em: {}", faviconPath);
-                throw new java.io.FileNotFoundException("Favicon não encontrado: " + faviconPath);
-            }
-
-            String filterComplex = WATERMARK_FILTER_BASE;
-            Path tempWatermarkImage = null;
-
-            java.util.List<String> cmdList = new java.util.ArrayList<>();
-            cmdList.add(FFMPEG_CMD);
-            cmdList.add("-y");
-            cmdList.add("-copyts");
-            cmdList.add("-i");
-            cmdList.add(inputPath.toAbsolutePath().toString());
-            cmdList.add("-i");
-            cmdList.add(faviconPath);
-
-            if (code != null && !code.isEmpty()) {
-                tempWatermarkImage = createRoundedWatermarkText(code);
-                cmdList.add("-i");
-                cmdList.add(tempWatermarkImage.toAbsolutePath().toString());
-                filterComplex += "[v1];[v1][2:v]overlay=10:10";
-            }
-
-            cmdList.addAll(java.util.Arrays.asList(
-                "-filter_complex", filterComplex,
-                "-c:v", CODEC_H264,
-                "-crf", "20",
-                "-an",
+    public void addForensicVariant(Path inputPath, Path outputPath, char variant, String rendition) {
+        log.debug("Gerando variante forense {} de: {}", variant, inputPath.getFileName());
+        try {
+            List<String> cmdList = new ArrayList<>(watermarkInputArgs(inputPath, null, forensicMark(variant)));
+            cmdList.addAll(List.of("-c:v", CODEC_H264, "-preset", "veryfast"));
+            cmdList.addAll(rateArgs(rendition));
+            cmdList.addAll(List.of(
+                "-c:a", "copy",
                 "-muxdelay", "0",
                 outputPath.toAbsolutePath().toString()
             ));
@@ -247,42 +345,242 @@ public class FFmpegService {
             ProcessBuilder pb = new ProcessBuilder(cmdList);
 
             pb.redirectErrorStream(true);
-            Process process = pb.start();
+            Process process = processPool.start(JobClass.HLS_PACKAGING, pb);
 
             StringBuilder outputLog = new StringBuilder();
-            logProcessOutputAndAppend(process, "FFmpeg Export:", outputLog);
+            logProcessOutputAndAppend(process, "FFmpeg Variante " + variant + ":", outputLog);
 
             int exitCode = process.waitFor();
+            if (exitCode != 0) {
+                log.error("Erro ao gerar variante forense {}. Cód: {}", variant, exitCode);
+                log.error("FFmpeg Output/Error: {}", outputLog);
+                throw new ComandoFFMpegException();
+            }
+        } catch (IOException | InterruptedException e) {
+            log.error("Erro ao gerar variante forense", e);
+            Thread.currentThread().interrupt();
+            throw new ArquivoIOException();
+        }
+    }
+
+    public Process startFragmentedMp4Remux(Path outputPath, String label) {
+        log.info("Iniciando remux para MP4 fragmentado: {}", outputPath.getFileName());
+        try {
+            ProcessBuilder pb = new ProcessBuilder(
+                FFMPEG_CMD,
+                "-y",
+                "-loglevel", "error",
+                "-f", "mpegts",
+                "-i", "pipe:0",
+                "-map", "0",
+                "-c", "copy",
+                "-movflags", "frag_keyframe+empty_moov+default_base_moof",
+                "-f", "mp4",
+                outputPath.toAbsolutePath().toString()
+            );
 
-            if (tempWatermarkImage != null) {
+            pb.redirectErrorStream(true);
+            Process process = processPool.start(JobClass.EXPORT, pb);
+
+            Thread.ofPlatform().name("export-remux-" + label).daemon(true).start(() -> {
                 try {
-                    Files.deleteIfExists(tempWatermarkImage);
-                } catch (Exception ignored) {}
+                    logProcessOutput(process, "FFmpeg Export:", _ -> { });
+                } catch (IOException e) {
+                    log.debug("Saída do remux de export encerrada: {}", label, e);
+                }
+            });
+            return process;
+        } catch (IOException e) {
+            log.error("Erro ao iniciar remux de export", e);
+            throw new ArquivoIOException();
+        }
+    }
+
+    public List<Rendition> renditionsFor(Path source) {
+        if (!renditionLadder.isEnabled()) {
+            return List.of();
+        }
+        int[] size = videoSize(source);
+        List<Rendition> renditions = renditionLadder.renditionsFor(size[0], size[1]);
+        log.info("Rendições para fonte {}x{}: {}", size[0], size[1], renditions);
+        return renditions;
+    }
+
+    private int[] videoSize(Path input) {
+        try {
+            ProcessBuilder pb = new ProcessBuilder(
+                FFPROBE_CMD,
+                "-v", "error",
+                "-select_streams", "v:0",
+                "-show_entries", "stream=width,height:stream_side_data=rotation",
+                "-of", "default=noprint_wrappers=1",
+                input.toAbsolutePath().toString()
+            );
+            pb.redirectErrorStream(true);
+            Process process = pb.start();
+            String output = new String(process.getInputStream().readAllBytes());
+            if (process.waitFor() != 0) {
+                log.warn("Não foi possível obter dimensões de {}: {}", input, output.strip());
+                return new int[] { 0, 0 };
             }
 
-            if (exitCode != 0) {
-                log.error("Erro ao exportar vídeo. Cód: {}. Check logs for details.", exitCode);
-                log.error("FFmpeg Output/Error: {}", outputLog.toString());
-                throw new ComandoFFMpegException();
+            int width = 0;
+            int height = 0;
+            int rotation = 0;
+            for (String line : output.split("\\R")) {
+                String[] campo = line.split("=", 2);
+                if (campo.length != 2) {
+                    continue;
+                }
+                try {
+                    switch (campo[0].trim()) {
+                        case "width" -> width = Integer.parseInt(campo[1].trim());
+                        case "height" -> height = Integer.parseInt(campo[1].trim());
+                        case "rotation" -> rotation = (int) Double.parseDouble(campo[1].trim());
+                        default -> { }
+                    }
+                } catch (NumberFormatException _) {
+                    log.debug("Valor inválido do ffprobe para {}: {}", input, line);
+                }
             }
-            log.info("Export concluído com sucesso: {}", outputPath.getFileName());
+            return Math.abs(rotation) % 180 == 90 ? new int[] { height, width } : new int[] { width, height };
+        } catch (IOException | InterruptedException e) {
+            log.warn("Não foi possível obter dimensões de {}", input, e);
+            Thread.currentThread().interrupt();
+            return new int[] { 0, 0 };
+        }
+    }
 
+    public boolean hasAudio(Path input) {
+        try {
+            ProcessBuilder pb = new ProcessBuilder(
+                FFPROBE_CMD,
+                "-v", "error",
+                "-select_streams", "a",
+                "-show_entries", "stream=index",
+                "-of", "csv=p=0",
+                input.toAbsolutePath().toString()
+            );
+            pb.redirectErrorStream(true);
+            Process process = pb.start();
+            String output = new String(process.getInputStream().readAllBytes());
+            return process.waitFor() == 0 && !output.isBlank();
         } catch (IOException | InterruptedException e) {
-            log.error("Erro ao exportar vídeo", e);
+            log.warn("Não foi possível verificar áudio de {}", input, e);
             Thread.currentThread().interrupt();
-            throw new ArquivoIOException();
+            return false;
         }
     }
 
-    private void logProcessOutput(Process process, String logPrefix) throws IOException {
+    private List<String> gopArgs() {
+        return List.of(
+            "-preset", "veryfast",
+            "-g", "60",
+            "-keyint_min", "60",
+            "-sc_threshold", "0"
+        );
+    }
+
+    private List<String> encodeArgs(boolean hasAudio, List<Rendition> renditions, List<String> videoArgs) {
+        List<String> args = new ArrayList<>();
+        if (renditions.isEmpty()) {
+            args.addAll(List.of("-c:v", CODEC_H264));
+            args.addAll(videoArgs);
+            args.addAll(List.of("-c:a", "copy"));
+            return args;
+        }
+
+        StringBuilder filter = new StringBuilder("[0:v]split=").append(renditions.size());
+        for (int i = 0; i < renditions.size(); i++) {
+            filter.append("[s").append(i).append(']');
+        }
+        for (int i = 0; i < renditions.size(); i++) {
+            Rendition rendition = renditions.get(i);
+            filter.append(";[s").append(i).append("]scale=w=").append(rendition.width())
+                    .append(":h=").append(rendition.height())
+                    .append(":force_original_aspect_ratio=decrease:force_divisible_by=2[v").append(i).append(']');
+        }
+
+        args.addAll(List.of("-filter_complex", filter.toString()));
+        for (int i = 0; i < renditions.size(); i++) {
+            args.addAll(List.of("-map", "[v" + i + "]"));
+        }
+        if (hasAudio) {
+            for (int i = 0; i < renditions.size(); i++) {
+                args.addAll(List.of("-map", "0:a:0"));
+            }
+        }
+
+        args.addAll(List.of("-c:v", CODEC_H264));
+        for (int i = 0; i < renditions.size(); i++) {
+            int kbps = renditions.get(i).videoKbps();
+            args.addAll(List.of(
+                "-b:v:" + i, kbps + "k",
+                "-maxrate:v:" + i, (kbps * 107 / 100) + "k",
+                "-bufsize:v:" + i, (kbps * 3 / 2) + "k"
+            ));
+        }
+        args.addAll(videoArgs);
+        if (hasAudio) {
+            args.addAll(List.of("-c:a", "copy"));
+        }
+
+        StringBuilder streamMap = new StringBuilder();
+        for (int i = 0; i < renditions.size(); i++) {
+            if (i > 0) {
+                streamMap.append(' ');
+            }
+            streamMap.append("v:").append(i);
+            if (hasAudio) {
+                streamMap.append(",a:").append(i);
+            }
+            streamMap.append(",name:").append(renditions.get(i).name());
+        }
+        args.addAll(List.of("-var_stream_map", streamMap.toString()));
+        return args;
+    }
+
+    private List<String> hlsArgs(Path outputDirPath, List<Rendition> renditions, String playlistBaseName, String segmentBaseName,
+            String hlsFlags) throws IOException {
+        Path baseDir = outputDirPath.toAbsolutePath();
+        if (!renditions.isEmpty()) {
+            for (Rendition rendition : renditions) {
+                Files.createDirectories(baseDir.resolve(rendition.name()));
+            }
+            baseDir = baseDir.resolve(VARIANT_PLACEHOLDER);
+        }
+
+        return List.of(
+            "-hls_time", String.valueOf(segmentSeconds),
+            "-hls_list_size", "0",
+            "-hls_flags", hlsFlags,
+            "-hls_segment_filename", baseDir.resolve(segmentBaseName + "_%03d.ts").toString(),
+            "-f", "hls",
+            baseDir.resolve(playlistBaseName + ".m3u8").toString()
+        );
+    }
+
+    private void logProcessOutput(Process process, String logPrefix, DoubleConsumer onProgress) throws IOException {
         try (java.io.BufferedReader reader = new java.io.BufferedReader(new java.io.InputStreamReader(process.getInputStream()))) {
             String line;
             while ((line = reader.readLine()) != null) {
+                if (line.startsWith(PROGRESS_OUT_TIME)) {
+                    reportProgress(line.substring(PROGRESS_OUT_TIME.length()), onProgress);
+                    continue;
+                }
                 log.debug("{} {}", logPrefix, line);
             }
         }
     }
 
+    private void reportProgress(String outTimeMicros, DoubleConsumer onProgress) {
+        try {
+            onProgress.accept(Long.parseLong(outTimeMicros.trim()) / 1_000_000d);
+        } catch (NumberFormatException _) {
+            log.trace("Progresso do FFmpeg ignorado: {}", outTimeMicros);
+        }
+    }
+
     private void logProcessOutputAndAppend(Process process, String logPrefix, StringBuilder outputLog) throws IOException {
         try (java.io.BufferedReader reader = new java.io.BufferedReader(new java.io.InputStreamReader(process.getInputStream()))) {
             String line;
@@ -301,50 +599,96 @@ public class FFmpegService {
         }
     }
 
-    private String getFaviconPath() {
-        try {
-            java.io.File resource = org.springframework.util.ResourceUtils.getFile(FAVICON_CLASSPATH);
-            return resource.getAbsolutePath();
-        } catch (java.io.FileNotFoundException ignored) {
-            return FAVICON_FALLBACK_PATH;
+    private List<String> watermarkInputArgs(Path inputPath, Path overlay, String extraFilter) throws IOException {
+        Path faviconPath = watermarkOverlayService.faviconPath();
+        if (Files.notExists(faviconPath)) {
+            log.error("Favicon não encontrado em: {}", faviconPath);
+            throw new java.io.FileNotFoundException("Favicon não encontrado: " + faviconPath);
+        }
+
+        String filterComplex = WATERMARK_FILTER_BASE;
+        List<String> args = new ArrayList<>(List.of(
+            FFMPEG_CMD,
+            "-y",
+            "-copyts",
+            "-i", inputPath.toAbsolutePath().toString(),
+            "-i", faviconPath.toString()
+        ));
+
+        if (overlay != null) {
+            args.addAll(List.of("-i", overlay.toAbsolutePath().toString()));
+            filterComplex += "[v1];[v1][2:v]overlay=10:10";
+        }
+        if (extraFilter != null) {
+            filterComplex += "," + extraFilter;
         }
+
+        args.addAll(List.of("-filter_complex", filterComplex + "[vout]", "-map", "[vout]", "-map", "0:a?"));
+        return args;
     }
 
-    private Path createRoundedWatermarkText(String text) throws IOException {
-        int padding = 10;
-        int fontSize = 24;
-        int cornerRadius = 12;
+    private String forensicMark(char variant) {
+        String position = variant == ForensicCode.VARIANT_A ? "x=iw/4:y=ih/4" : "x=iw*3/4:y=ih*3/4";
+        return "drawbox=" + position + ":w=iw/48:h=iw/48:color=white@" + FORENSIC_MARK_OPACITY + ":t=fill";
+    }
 
-        java.awt.Font font = new java.awt.Font("SansSerif", java.awt.Font.BOLD, fontSize);
-        
-        java.awt.image.BufferedImage img = new java.awt.image.BufferedImage(1, 1, java.awt.image.BufferedImage.TYPE_INT_ARGB);
-        java.awt.Graphics2D g2d = img.createGraphics();
-        g2d.setFont(font);
-        java.awt.FontMetrics fm = g2d.getFontMetrics();
-        int textWidth = fm.stringWidth(text);
-        int textHeight = fm.getHeight();
-        g2d.dispose();
-
-        int width = textWidth + padding * 2;
-        int height = textHeight + padding * 2;
-
-        img = new java.awt.image.BufferedImage(width, height, java.awt.image.BufferedImage.TYPE_INT_ARGB);
-        g2d = img.createGraphics();
-        
-        g2d.setRenderingHint(java.awt.RenderingHints.KEY_ANTIALIASING, java.awt.RenderingHints.VALUE_ANTIALIAS_ON);
-        g2d.setRenderingHint(java.awt.RenderingHints.KEY_TEXT_ANTIALIASING, java.awt.RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+    public double[] forensicMarkLuma(Path input) {
+        ProcessBuilder pb = new ProcessBuilder(
+            FFMPEG_CMD,
+            "-v", "error",
+            "-i", input.toAbsolutePath().toString(),
+            "-an",
+            "-vf", "scale=" + FORENSIC_PROBE_WIDTH + ":" + FORENSIC_PROBE_HEIGHT + ",format=gray",
+            "-f", "rawvideo",
+            "pipe:1"
+        );
+        pb.redirectError(ProcessBuilder.Redirect.DISCARD);
+        try {
+            Process process = processPool.start(JobClass.HLS_PACKAGING, pb);
+            byte[] frame = new byte[FORENSIC_PROBE_WIDTH * FORENSIC_PROBE_HEIGHT];
+            double somaA = 0;
+            double somaB = 0;
+            long frames = 0;
+            try (InputStream is = process.getInputStream()) {
+                while (is.readNBytes(frame, 0, frame.length) == frame.length) {
+                    somaA += regionLuma(frame, FORENSIC_PROBE_WIDTH / 4, FORENSIC_PROBE_HEIGHT / 4);
+                    somaB += regionLuma(frame, FORENSIC_PROBE_WIDTH * 3 / 4, FORENSIC_PROBE_HEIGHT * 3 / 4);
+                    frames++;
+                }
+            }
+            if (process.waitFor() != 0 || frames == 0) {
+                log.error("Não foi possível decodificar quadros para medir a marca forense de {}", input);
+                throw new ComandoFFMpegException();
+            }
+            return new double[] { somaA / frames, somaB / frames };
+        } catch (IOException | InterruptedException e) {
+            log.error("Erro ao medir marca forense de {}", input, e);
+            Thread.currentThread().interrupt();
+            throw new ArquivoIOException();
+        }
+    }
 
-        g2d.setColor(new java.awt.Color(0, 0, 0, 128));
-        g2d.fillRoundRect(0, 0, width, height, cornerRadius, cornerRadius);
+    private static double regionLuma(byte[] frame, int x0, int y0) {
+        int soma = 0;
+        for (int y = y0; y < y0 + FORENSIC_PROBE_SAMPLE; y++) {
+            for (int x = x0 + 1; x < x0 + 1 + FORENSIC_PROBE_SAMPLE; x++) {
+                soma += frame[y * FORENSIC_PROBE_WIDTH + x] & 0xFF;
+            }
+        }
+        return (double) soma / (FORENSIC_PROBE_SAMPLE * FORENSIC_PROBE_SAMPLE);
+    }
 
-        g2d.setColor(java.awt.Color.WHITE);
-        g2d.setFont(font);
-        g2d.drawString(text, padding, fm.getAscent() + padding);
-        g2d.dispose();
+    private List<String> rateArgs(String rendition) {
+        return renditionLadder.find(rendition)
+            .map(r -> List.of("-b:v", r.videoKbps() + "k", "-maxrate", (r.videoKbps() * 107 / 100) + "k", "-bufsize", (r.videoKbps() * 3 / 2) + "k"))
+            .orElse(List.of("-crf", "20"));
+    }
 
-        Path tempFile = Files.createTempFile("watermark_text_", ".png");
-        javax.imageio.ImageIO.write(img, "png", tempFile.toFile());
-        
-        return tempFile;
+    private List<String> watermarkProfileArgs() {
+        return List.of(
+            "-preset", watermarkPreset,
+            "-tune", watermarkTune,
+            "-threads", String.valueOf(watermarkThreads)
+        );
     }
 }
\ No newline at end of file
@@ -0,0 +1,228 @@
+package com.sachetto.streaming.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import com.sachetto.streaming.exception.ArquivoIOException;
+import com.sachetto.streaming.exception.ChecksumException;
+import com.sachetto.streaming.util.StorageKeys;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class FileDigestService {
+
+    private static final String UPLOAD_KEY_PREFIX = "upload:";
+    private static final String DIGEST_KEY_SUFFIX = ":digest";
+    private static final String LOCK_KEY_SUFFIX = ":digest:lock";
+    private static final String NEXT_FIELD = "next";
+    private static final String ALGORITHM = "SHA-256";
+    private static final int READ_BUFFER_SIZE = 1024 * 1024;
+    private static final Duration LOCK_TTL = Duration.ofMinutes(5);
+    private static final long LOCK_RETRY_MILLIS = 200;
+    private static final RedisScript<Long> RELEASE_LOCK = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end", Long.class);
+
+    private static final class DigestState {
+        private final MessageDigest sha = newSha256();
+        private long next = 1;
+    }
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final ChunkService chunkService;
+
+    private final Map<UUID, DigestState> states = new ConcurrentHashMap<>();
+    private final ThreadLocal<ByteBuffer> readBuffer = ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(READ_BUFFER_SIZE));
+    private ThreadPoolExecutor executor;
+
+    @Value("${streaming.config.digest.workers:2}")
+    private int workers;
+
+    @Value("${streaming.config.upload.ttl_ms:86400000}")
+    private long uploadTtlMillis;
+
+    @PostConstruct
+    void start() {
+        executor = new ThreadPoolExecutor(
+                workers, workers,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(1024),
+                Thread.ofPlatform().name("digest-", 0).daemon(true).factory(),
+                new ThreadPoolExecutor.DiscardPolicy());
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdownNow();
+    }
+
+    public void advanceAsync(UUID uploadId) {
+        executor.execute(() -> {
+            try {
+                advance(uploadId);
+            } catch (RuntimeException e) {
+                log.warn("Falha ao avançar hash incremental para uploadId={}", uploadId, e);
+            }
+        });
+    }
+
+    public void advance(UUID uploadId) {
+        String token = UUID.randomUUID().toString();
+        if (!tryLock(uploadId, token)) {
+            log.debug("Hash incremental de {} já está sendo atualizado por outro worker", uploadId);
+            return;
+        }
+
+        try {
+            digestContiguous(uploadId, Long.MAX_VALUE);
+        } finally {
+            unlock(uploadId, token);
+        }
+    }
+
+    public String finish(UUID uploadId, long totalChunks) {
+        String token = UUID.randomUUID().toString();
+        long deadline = System.currentTimeMillis() + LOCK_TTL.toMillis();
+        while (!tryLock(uploadId, token)) {
+            if (System.currentTimeMillis() > deadline) {
+                log.error("Timeout aguardando lock do hash incremental para uploadId={}", uploadId);
+                throw new ChecksumException();
+            }
+            sleep();
+        }
+
+        try {
+            long next = digestContiguous(uploadId, totalChunks);
+            if (next <= totalChunks) {
+                log.error("Hash incremental incompleto para {}. Esperado: {}, Processado: {}", uploadId, totalChunks, next - 1);
+                throw new ChecksumException();
+            }
+            return HexFormat.of().formatHex(digest(uploadId));
+        } finally {
+            unlock(uploadId, token);
+        }
+    }
+
+    public void cleanup(UUID uploadId) {
+        states.remove(uploadId);
+        stringRedisTemplate.delete(List.of(getDigestKey(uploadId), getLockKey(uploadId)));
+    }
+
+    private long digestContiguous(UUID uploadId, long lastChunk) {
+        DigestState state = loadState(uploadId);
+        synchronized (state) {
+            while (state.next <= lastChunk && chunkService.isChunkRegistered(uploadId, state.next)) {
+                try {
+                    digestChunk(state.sha, StorageKeys.local(StorageKeys.chunk(uploadId, state.next)));
+                } catch (RuntimeException e) {
+                    states.remove(uploadId, state);
+                    throw e;
+                }
+                state.next++;
+                saveProgress(uploadId, state.next);
+            }
+
+            log.debug("Hash incremental de {} avançado até o chunk {}", uploadId, state.next - 1);
+            return state.next;
+        }
+    }
+
+    private byte[] digest(UUID uploadId) {
+        DigestState state = states.remove(uploadId);
+        if (state == null) {
+            throw new ChecksumException();
+        }
+        synchronized (state) {
+            return state.sha.digest();
+        }
+    }
+
+    private void digestChunk(MessageDigest sha, Path chunkPath) {
+        ByteBuffer buffer = readBuffer.get();
+        try (FileChannel channel = FileChannel.open(chunkPath, StandardOpenOption.READ)) {
+            buffer.clear();
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                sha.update(buffer);
+                buffer.clear();
+            }
+        } catch (IOException e) {
+            log.error("Erro ao ler chunk para hash incremental: {}", chunkPath, e);
+            throw new ArquivoIOException();
+        }
+    }
+
+    // O estado do MessageDigest vive só em memória; no Redis fica apenas o progresso, e após um restart o hash recomeça do chunk 1
+    private DigestState loadState(UUID uploadId) {
+        return states.computeIfAbsent(uploadId, id -> {
+            Object next = stringRedisTemplate.opsForHash().get(getDigestKey(id), NEXT_FIELD);
+            if (next != null && Long.parseLong(next.toString()) > 1) {
+                log.info("Estado do hash incremental de {} perdido após o chunk {}, recalculando desde o início", id, Long.parseLong(next.toString()) - 1);
+            }
+            return new DigestState();
+        });
+    }
+
+    private void saveProgress(UUID uploadId, long next) {
+        stringRedisTemplate.opsForHash().put(getDigestKey(uploadId), NEXT_FIELD, String.valueOf(next));
+        stringRedisTemplate.expire(getDigestKey(uploadId), Duration.ofMillis(uploadTtlMillis));
+    }
+
+    private static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance(ALGORITHM);
+        } catch (NoSuchAlgorithmException _) {
+            throw new ChecksumException();
+        }
+    }
+
+    private boolean tryLock(UUID uploadId, String token) {
+        return Boolean.TRUE.equals(stringRedisTemplate.opsForValue().setIfAbsent(getLockKey(uploadId), token, LOCK_TTL));
+    }
+
+    private void unlock(UUID uploadId, String token) {
+        stringRedisTemplate.execute(RELEASE_LOCK, List.of(getLockKey(uploadId)), token);
+    }
+
+    private void sleep() {
+        try {
+            Thread.sleep(LOCK_RETRY_MILLIS);
+        } catch (InterruptedException _) {
+            Thread.currentThread().interrupt();
+            throw new ChecksumException();
+        }
+    }
+
+    private String getDigestKey(UUID uploadId) {
+        return UPLOAD_KEY_PREFIX + uploadId + DIGEST_KEY_SUFFIX;
+    }
+
+    private String getLockKey(UUID uploadId) {
+        return UPLOAD_KEY_PREFIX + uploadId + LOCK_KEY_SUFFIX;
+    }
+}
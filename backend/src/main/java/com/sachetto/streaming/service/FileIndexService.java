@@ -0,0 +1,227 @@
+package com.sachetto.streaming.service;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.sachetto.streaming.entity.File;
+import com.sachetto.streaming.entity.FileIndexOperation;
+import com.sachetto.streaming.entity.FileRead;
+import com.sachetto.streaming.listener.FileElasticSyncListener.FileIndexEvent;
+import com.sachetto.streaming.repository.FileRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class FileIndexService {
+
+    private static final String THUMBNAIL_URL = "http://localhost:8080/api/v1/download/%s/thumbnail";
+    private static final String SELECT_BATCH =
+            "SELECT pk_file_index_outbox, file_id, operation, attempts FROM tb_file_index_outbox "
+            + "WHERE next_attempt_at <= ? ORDER BY pk_file_index_outbox LIMIT ? FOR UPDATE SKIP LOCKED";
+    private static final String DELETE_ENTRY = "DELETE FROM tb_file_index_outbox WHERE pk_file_index_outbox = ?";
+    private static final String RETRY_ENTRY =
+            "UPDATE tb_file_index_outbox SET attempts = attempts + 1, next_attempt_at = ? WHERE pk_file_index_outbox = ?";
+    private static final String OLDEST_ENTRY = "SELECT MIN(created_at) FROM tb_file_index_outbox";
+
+    private record OutboxEntry(long id, UUID fileId, FileIndexOperation operation, int attempts) { }
+
+    private final ElasticsearchOperations elasticsearchOperations;
+    private final FileRepository fileRepository;
+    private final CatalogCacheService catalogCacheService;
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+    private final MeterRegistry meterRegistry;
+
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final AtomicInteger pendingSinceFlush = new AtomicInteger();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private ExecutorService executor;
+    private TransactionTemplate transactionTemplate;
+    private Counter indexed;
+    private Counter deleted;
+    private Counter coalesced;
+    private Counter failures;
+    private volatile double lagSeconds;
+
+    @Value("${streaming.config.search.index.batch_size:500}")
+    private int batchSize;
+
+    @Value("${streaming.config.search.index.retry_base_ms:1000}")
+    private long retryBaseMillis;
+
+    @Value("${streaming.config.search.index.retry_max_ms:300000}")
+    private long retryMaxMillis;
+
+    @PostConstruct
+    void init() {
+        executor = Executors.newSingleThreadExecutor(Thread.ofPlatform().name("file-indexer").daemon(true).factory());
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        indexed = Counter.builder("streaming.search.index.documents").tag("operation", "upsert").register(meterRegistry);
+        deleted = Counter.builder("streaming.search.index.documents").tag("operation", "delete").register(meterRegistry);
+        coalesced = Counter.builder("streaming.search.index.coalesced").register(meterRegistry);
+        failures = Counter.builder("streaming.search.index.failures").register(meterRegistry);
+        Gauge.builder("streaming.search.index.lag", this, service -> service.lagSeconds).baseUnit("seconds").register(meterRegistry);
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdownNow();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onFileChanged(FileIndexEvent event) {
+        if (pendingSinceFlush.incrementAndGet() >= batchSize) {
+            requestFlush();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${streaming.config.search.index.flush_ms:1000}")
+    public void scheduledFlush() {
+        requestFlush();
+    }
+
+    private void requestFlush() {
+        if (flushScheduled.compareAndSet(false, true)) {
+            executor.execute(() -> {
+                flushScheduled.set(false);
+                flush();
+            });
+        }
+    }
+
+    public void flush() {
+        if (!flushLock.tryLock()) {
+            return;
+        }
+        try {
+            pendingSinceFlush.set(0);
+            Integer processed;
+            do {
+                processed = transactionTemplate.execute(_ -> flushBatch());
+            } while (processed != null && processed >= batchSize);
+        } catch (RuntimeException e) {
+            log.warn("Falha ao processar outbox de indexação", e);
+        } finally {
+            updateLag();
+            flushLock.unlock();
+        }
+    }
+
+    private int flushBatch() {
+        List<OutboxEntry> entries = jdbcTemplate.query(SELECT_BATCH,
+                (rs, _) -> new OutboxEntry(
+                        rs.getLong(1),
+                        rs.getObject(2, UUID.class),
+                        FileIndexOperation.valueOf(rs.getString(3)),
+                        rs.getInt(4)),
+                Timestamp.valueOf(LocalDateTime.now()), batchSize);
+        if (entries.isEmpty()) {
+            return 0;
+        }
+
+        Map<UUID, FileIndexOperation> latest = new LinkedHashMap<>();
+        entries.forEach(entry -> latest.put(entry.fileId(), entry.operation()));
+        coalesced.increment(entries.size() - latest.size());
+
+        try {
+            apply(latest);
+            jdbcTemplate.batchUpdate(DELETE_ENTRY, entries.stream().map(entry -> new Object[] { entry.id() }).toList());
+            log.debug("{} alterações indexadas no Elasticsearch ({} documentos)", entries.size(), latest.size());
+        } catch (RuntimeException e) {
+            failures.increment();
+            log.warn("Falha ao indexar lote de {} documentos, nova tentativa agendada", latest.size(), e);
+            jdbcTemplate.batchUpdate(RETRY_ENTRY, entries.stream()
+                    .map(entry -> new Object[] { Timestamp.valueOf(LocalDateTime.now().plus(backoff(entry.attempts()))), entry.id() })
+                    .toList());
+            return 0;
+        }
+        return entries.size();
+    }
+
+    private void apply(Map<UUID, FileIndexOperation> latest) {
+        List<UUID> upserts = latest.entrySet().stream()
+                .filter(entry -> entry.getValue() == FileIndexOperation.UPSERT)
+                .map(Map.Entry::getKey)
+                .toList();
+
+        List<FileRead> documents = new ArrayList<>();
+        List<UUID> removidos = new ArrayList<>(latest.entrySet().stream()
+                .filter(entry -> entry.getValue() == FileIndexOperation.DELETE)
+                .map(Map.Entry::getKey)
+                .toList());
+
+        Map<UUID, File> files = new LinkedHashMap<>();
+        fileRepository.findAllById(upserts).forEach(file -> files.put(file.getId(), file));
+        for (UUID id : upserts) {
+            File file = files.get(id);
+            if (file == null) {
+                removidos.add(id);
+            } else {
+                documents.add(toFileRead(file));
+            }
+        }
+
+        if (!documents.isEmpty()) {
+            elasticsearchOperations.save(documents);
+            indexed.increment(documents.size());
+        }
+        for (UUID id : removidos) {
+            elasticsearchOperations.delete(id.toString(), FileRead.class);
+            deleted.increment();
+        }
+        catalogCacheService.invalidate();
+    }
+
+    private Duration backoff(int attempts) {
+        long millis = retryBaseMillis << Math.min(attempts, 20);
+        return Duration.ofMillis(Math.min(millis, retryMaxMillis));
+    }
+
+    private void updateLag() {
+        try {
+            Timestamp oldest = jdbcTemplate.queryForObject(OLDEST_ENTRY, Timestamp.class);
+            lagSeconds = oldest == null ? 0 : Duration.between(oldest.toLocalDateTime(), LocalDateTime.now()).toMillis() / 1000d;
+        } catch (RuntimeException e) {
+            log.debug("Não foi possível calcular o atraso da indexação", e);
+        }
+    }
+
+    public static FileRead toFileRead(File file) {
+        return FileRead.builder()
+                .id(file.getId().toString())
+                .name(file.getName())
+                .content(file.getContent())
+                .thumbnail(THUMBNAIL_URL.formatted(file.getId()))
+                .createdAt(file.getCreatedAt())
+                .build();
+    }
+}
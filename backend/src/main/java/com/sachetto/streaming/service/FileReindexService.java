@@ -0,0 +1,264 @@
+package com.sachetto.streaming.service;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+import org.springframework.data.elasticsearch.client.elc.NativeQuery;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.IndexOperations;
+import org.springframework.data.elasticsearch.core.SearchHitsIterator;
+import org.springframework.data.elasticsearch.core.index.AliasAction;
+import org.springframework.data.elasticsearch.core.index.AliasActionParameters;
+import org.springframework.data.elasticsearch.core.index.AliasActions;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.data.elasticsearch.core.query.FetchSourceFilter;
+import org.springframework.stereotype.Service;
+
+import com.sachetto.streaming.dto.ReindexStatusResponseDto;
+import com.sachetto.streaming.entity.File;
+import com.sachetto.streaming.entity.FileRead;
+import com.sachetto.streaming.entity.TranscodeJobStatus;
+import com.sachetto.streaming.repository.FileRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class FileReindexService {
+
+    private static final String INDEX_ALIAS = FileRead.INDEX_ALIAS;
+    private static final DateTimeFormatter VERSION_FORMAT = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
+
+    private static final class ReindexJob {
+        private final String index;
+        private final long startedAt = System.nanoTime();
+        private final AtomicLong indexed = new AtomicLong();
+        private volatile long total;
+        private volatile long finishedAt;
+        private volatile TranscodeJobStatus status = TranscodeJobStatus.RUNNING;
+        private volatile String error;
+
+        private ReindexJob(String index) {
+            this.index = index;
+        }
+    }
+
+    private final ElasticsearchOperations elasticsearchOperations;
+    private final FileRepository fileRepository;
+    private final CatalogCacheService catalogCacheService;
+    private final MeterRegistry meterRegistry;
+
+    private final AtomicReference<ReindexJob> current = new AtomicReference<>();
+    private ExecutorService coordinator;
+    private ThreadPoolExecutor bulkExecutor;
+    private Counter documents;
+
+    @Value("${streaming.config.search.reindex.batch_size:1000}")
+    private int batchSize;
+
+    @Value("${streaming.config.search.reindex.parallelism:4}")
+    private int parallelism;
+
+    @PostConstruct
+    void init() {
+        coordinator = Executors.newSingleThreadExecutor(Thread.ofPlatform().name("reindex").daemon(true).factory());
+        bulkExecutor = new ThreadPoolExecutor(
+                parallelism, parallelism,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(parallelism),
+                Thread.ofPlatform().name("reindex-bulk-", 0).daemon(true).factory(),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        documents = Counter.builder("streaming.search.reindex.documents").register(meterRegistry);
+        Gauge.builder("streaming.search.reindex.progress", current, ref -> progress(ref.get())).register(meterRegistry);
+    }
+
+    @PreDestroy
+    void stop() {
+        coordinator.shutdownNow();
+        bulkExecutor.shutdownNow();
+    }
+
+    public ReindexStatusResponseDto start() {
+        ReindexJob previous = current.get();
+        if (previous != null && previous.status == TranscodeJobStatus.RUNNING) {
+            return toStatus(previous);
+        }
+
+        ReindexJob job = new ReindexJob(INDEX_ALIAS + "_v" + LocalDateTime.now().format(VERSION_FORMAT));
+        if (!current.compareAndSet(previous, job)) {
+            return toStatus(current.get());
+        }
+        coordinator.execute(() -> run(job));
+        return toStatus(job);
+    }
+
+    public ReindexStatusResponseDto status() {
+        ReindexJob job = current.get();
+        return job == null ? new ReindexStatusResponseDto(null, null, 0L, 0L, 0d, null) : toStatus(job);
+    }
+
+    private void run(ReindexJob job) {
+        log.info("Iniciando reindexação de {} no índice {}", INDEX_ALIAS, job.index);
+        LocalDateTime inicio = LocalDateTime.now();
+        IndexCoordinates target = IndexCoordinates.of(job.index);
+        boolean publicado = false;
+        try {
+            IndexOperations fileReadOps = elasticsearchOperations.indexOps(FileRead.class);
+            elasticsearchOperations.indexOps(target).create(fileReadOps.createSettings(), fileReadOps.createMapping());
+            job.total = fileRepository.count();
+
+            load(job, target, position -> fileRepository.findAllByOrderByIdAsc(position, Limit.of(batchSize)));
+            elasticsearchOperations.indexOps(target).refresh();
+
+            Set<String> antigos = swapAlias(job.index);
+            publicado = true;
+            load(job, target, position -> fileRepository.findByUpdatedAtGreaterThanEqualOrderByIdAsc(inicio, position, Limit.of(batchSize)));
+            purgeDeleted(target);
+            catalogCacheService.invalidate();
+            antigos.forEach(index -> elasticsearchOperations.indexOps(IndexCoordinates.of(index)).delete());
+
+            job.finishedAt = System.nanoTime();
+            job.status = TranscodeJobStatus.SUCCESS;
+            log.info("Reindexação concluída: {} documentos em {} ({} docs/s)", job.indexed.get(), job.index, String.format("%.1f", throughput(job)));
+        } catch (RuntimeException e) {
+            log.error("Falha na reindexação de {}", job.index, e);
+            job.error = e.getMessage();
+            job.finishedAt = System.nanoTime();
+            job.status = TranscodeJobStatus.FAILED;
+            if (!publicado) {
+                deleteQuietly(target);
+            }
+        }
+    }
+
+    private void load(ReindexJob job, IndexCoordinates target, Function<ScrollPosition, Window<File>> pages) {
+        List<CompletableFuture<Void>> bulks = new ArrayList<>();
+        ScrollPosition position = ScrollPosition.keyset();
+        Window<File> window;
+        do {
+            window = pages.apply(position);
+            if (window.isEmpty()) {
+                break;
+            }
+            List<FileRead> batch = window.getContent().stream().map(FileIndexService::toFileRead).toList();
+            bulks.add(CompletableFuture.runAsync(() -> bulk(job, batch, target), bulkExecutor));
+            bulks.removeIf(bulk -> bulk.isDone() && !bulk.isCompletedExceptionally());
+            bulks.stream().filter(CompletableFuture::isCompletedExceptionally).findFirst().ifPresent(CompletableFuture::join);
+            position = window.positionAt(window.size() - 1);
+        } while (window.hasNext());
+
+        CompletableFuture.allOf(bulks.toArray(CompletableFuture[]::new)).join();
+    }
+
+    private void bulk(ReindexJob job, List<FileRead> batch, IndexCoordinates target) {
+        elasticsearchOperations.save(batch, target);
+        documents.increment(batch.size());
+        long indexed = job.indexed.addAndGet(batch.size());
+        log.debug("Reindexação {}: {}/{} documentos", job.index, indexed, job.total);
+    }
+
+    private void purgeDeleted(IndexCoordinates target) {
+        NativeQuery query = NativeQuery.builder()
+                .withQuery(q -> q.matchAll(m -> m))
+                .withSourceFilter(FetchSourceFilter.of(false, null, null))
+                .withPageable(PageRequest.of(0, batchSize))
+                .build();
+
+        long removidos = 0;
+        try (SearchHitsIterator<FileRead> hits = elasticsearchOperations.searchForStream(query, FileRead.class, target)) {
+            List<String> ids = new ArrayList<>(batchSize);
+            while (hits.hasNext()) {
+                ids.add(hits.next().getId());
+                if (ids.size() == batchSize) {
+                    removidos += purge(ids, target);
+                    ids.clear();
+                }
+            }
+            removidos += purge(ids, target);
+        }
+        if (removidos > 0) {
+            log.info("Reindexação {}: {} documentos de arquivos removidos durante a carga foram apagados", target.getIndexName(), removidos);
+        }
+    }
+
+    private int purge(List<String> ids, IndexCoordinates target) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        Set<UUID> existentes = new HashSet<>(fileRepository.findExistingIds(ids.stream().map(UUID::fromString).toList()));
+        List<String> orfaos = ids.stream().filter(id -> !existentes.contains(UUID.fromString(id))).toList();
+        orfaos.forEach(id -> elasticsearchOperations.delete(id, target));
+        return orfaos.size();
+    }
+
+    private Set<String> swapAlias(String index) {
+        IndexOperations aliasOps = elasticsearchOperations.indexOps(IndexCoordinates.of(INDEX_ALIAS));
+        Set<String> antigos = aliasOps.exists() ? new HashSet<>(aliasOps.getAliasesForIndex(INDEX_ALIAS).keySet()) : new HashSet<>();
+
+        List<AliasAction> actions = new ArrayList<>();
+        actions.add(new AliasAction.Add(AliasActionParameters.builder().withIndices(index).withAliases(INDEX_ALIAS).build()));
+        if (antigos.remove(INDEX_ALIAS)) {
+            log.warn("{} é um índice concreto, será substituído pelo alias", INDEX_ALIAS);
+            actions.add(new AliasAction.RemoveIndex(AliasActionParameters.builder().withIndices(INDEX_ALIAS).build()));
+        }
+        if (!antigos.isEmpty()) {
+            actions.add(new AliasAction.Remove(AliasActionParameters.builder()
+                    .withIndices(antigos.toArray(String[]::new)).withAliases(INDEX_ALIAS).build()));
+        }
+
+        aliasOps.alias(new AliasActions(actions.toArray(AliasAction[]::new)));
+        log.info("Alias {} agora aponta para {}", INDEX_ALIAS, index);
+        return antigos;
+    }
+
+    private void deleteQuietly(IndexCoordinates target) {
+        try {
+            elasticsearchOperations.indexOps(target).delete();
+        } catch (RuntimeException e) {
+            log.warn("Não foi possível remover índice incompleto {}", target.getIndexName(), e);
+        }
+    }
+
+    private ReindexStatusResponseDto toStatus(ReindexJob job) {
+        return new ReindexStatusResponseDto(job.status, job.index, job.total, job.indexed.get(), throughput(job), job.error);
+    }
+
+    private double progress(ReindexJob job) {
+        if (job == null || job.total == 0) {
+            return 0;
+        }
+        return Math.min(1d, (double) job.indexed.get() / job.total);
+    }
+
+    private double throughput(ReindexJob job) {
+        long fim = job.finishedAt > 0 ? job.finishedAt : System.nanoTime();
+        double seconds = (fim - job.startedAt) / 1_000_000_000d;
+        return seconds > 0 ? job.indexed.get() / seconds : 0;
+    }
+}
@@ -0,0 +1,261 @@
+package com.sachetto.streaming.service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import com.sachetto.streaming.config.RenditionLadder;
+import com.sachetto.streaming.exception.ArquivoIOException;
+import com.sachetto.streaming.exception.IdentificacaoForenseException;
+import com.sachetto.streaming.util.ForensicCode;
+import com.sachetto.streaming.util.StorageKeys;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ForensicVariantService {
+
+    private static final String FORENSIC_DIR = "forensic";
+    private static final String READY_MARKER = ".ready";
+    private static final String TEMP_PREFIX = ".tmp_";
+    private static final char[] VARIANTS = { ForensicCode.VARIANT_A, ForensicCode.VARIANT_B };
+
+    private final FFmpegService ffmpegService;
+    private final PlaylistManifestService playlistManifestService;
+    private final StorageService storageService;
+
+    private final Set<UUID> available = ConcurrentHashMap.newKeySet();
+    private final Map<UUID, Long> missingUntil = new ConcurrentHashMap<>();
+    private ForkJoinPool pool;
+    private ExecutorService coordinator;
+
+    @Value("${streaming.config.watermark.forensic.enabled:true}")
+    private boolean enabled;
+
+    @Value("${streaming.config.watermark.forensic.parallelism:0}")
+    private int parallelism;
+
+    @Value("${streaming.config.watermark.forensic.negative_ttl_ms:5000}")
+    private long negativeTtlMillis;
+
+    @PostConstruct
+    void start() {
+        pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        coordinator = Executors.newSingleThreadExecutor(Thread.ofPlatform().name("forensic-variants").daemon(true).factory());
+    }
+
+    @PreDestroy
+    void stop() {
+        coordinator.shutdownNow();
+        pool.shutdownNow();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean isAvailable(UUID uploadId) {
+        if (!enabled) {
+            return false;
+        }
+        if (available.contains(uploadId)) {
+            return true;
+        }
+        long agora = System.currentTimeMillis();
+        Long ausenteAte = missingUntil.get(uploadId);
+        if (ausenteAte != null && ausenteAte > agora) {
+            return false;
+        }
+        if (storageService.exists(StorageKeys.of(uploadId, FORENSIC_DIR, READY_MARKER))) {
+            available.add(uploadId);
+            missingUntil.remove(uploadId);
+            return true;
+        }
+        missingUntil.put(uploadId, agora + negativeTtlMillis);
+        return false;
+    }
+
+    public String key(UUID uploadId, String rendition, String segmentName, char variant) {
+        return StorageKeys.of(uploadId, FORENSIC_DIR, String.valueOf(variant), rendition, segmentName);
+    }
+
+    public Path resolve(UUID uploadId, String rendition, String segmentName, char variant) {
+        return StorageKeys.local(key(uploadId, rendition, segmentName, variant));
+    }
+
+    public void generateAsync(UUID uploadId) {
+        try {
+            coordinator.execute(() -> {
+                try {
+                    if (generate(uploadId)) {
+                        storageService.publish(StorageKeys.of(uploadId, FORENSIC_DIR));
+                        missingUntil.remove(uploadId);
+                    }
+                } catch (RuntimeException e) {
+                    log.warn("Falha ao gerar variantes forenses de uploadId={}, segmentos usarão marca d'água por espectador", uploadId, e);
+                }
+            });
+        } catch (RejectedExecutionException _) {
+            log.warn("Geração de variantes forenses de uploadId={} descartada pelo desligamento da aplicação", uploadId);
+        }
+    }
+
+    public boolean generate(UUID uploadId) {
+        Map<String, List<String>> segmentsByRendition = new LinkedHashMap<>();
+        for (String rendition : playlistManifestService.renditionNames(uploadId)) {
+            List<String> segmentNames = playlistManifestService.segmentNames(uploadId, rendition);
+            if (segmentNames.size() < ForensicCode.TOTAL_BITS) {
+                log.info("uploadId={} tem {} segmentos, menos que os {} bits do código forense; mantendo marca d'água por espectador",
+                        uploadId, segmentNames.size(), ForensicCode.TOTAL_BITS);
+                return false;
+            }
+            segmentsByRendition.put(rendition, segmentNames);
+        }
+
+        log.info("Gerando variantes forenses A/B para uploadId: {}", uploadId);
+        Path sourceDir = StorageKeys.local(uploadId);
+
+        List<ForkJoinTask<?>> tasks = new ArrayList<>();
+        for (Map.Entry<String, List<String>> entry : segmentsByRendition.entrySet()) {
+            String rendition = entry.getKey();
+            Path renditionDir = rendition == null ? sourceDir : sourceDir.resolve(rendition);
+            for (String segmentName : entry.getValue()) {
+                for (char variant : VARIANTS) {
+                    Path target = resolve(uploadId, rendition, segmentName, variant);
+                    tasks.add(pool.submit(() -> generateVariant(renditionDir.resolve(segmentName), target, variant, rendition)));
+                }
+            }
+        }
+
+        try {
+            tasks.forEach(ForkJoinTask::join);
+        } catch (RuntimeException e) {
+            tasks.forEach(task -> task.cancel(true));
+            throw e;
+        }
+
+        try {
+            Files.writeString(forensicDir(uploadId).resolve(READY_MARKER), String.valueOf(ForensicCode.TOTAL_BITS));
+        } catch (IOException e) {
+            log.error("Erro ao marcar variantes forenses como prontas: {}", uploadId, e);
+            throw new ArquivoIOException();
+        }
+        log.info("Variantes forenses publicadas para uploadId: {} ({} segmentos)", uploadId, tasks.size() / VARIANTS.length);
+        return true;
+    }
+
+    public String identify(UUID uploadId, String rendition, List<MultipartFile> leakedSegments) {
+        if (rendition != null && !rendition.matches(RenditionLadder.RENDITION_PATTERN)) {
+            throw new IdentificacaoForenseException("rendição inválida");
+        }
+        if (!isAvailable(uploadId)) {
+            throw new IdentificacaoForenseException("vídeo sem variantes forenses");
+        }
+        Path dir = null;
+        try {
+            dir = Files.createTempDirectory(TEMP_PREFIX + "identify_");
+            Map<String, Path> segments = new HashMap<>();
+            for (MultipartFile leaked : leakedSegments) {
+                String segmentName = leaked.getOriginalFilename() == null ? "" : Paths.get(leaked.getOriginalFilename()).getFileName().toString();
+                Path path = dir.resolve(UUID.randomUUID() + ".ts");
+                leaked.transferTo(path);
+                segments.put(segmentName, path);
+            }
+            return identify(uploadId, rendition, segments);
+        } catch (IOException e) {
+            log.error("Erro ao receber segmentos vazados de {}", uploadId, e);
+            throw new ArquivoIOException();
+        } catch (IllegalArgumentException e) {
+            throw new IdentificacaoForenseException(e.getMessage());
+        } finally {
+            deleteRecursively(dir);
+        }
+    }
+
+    public String identify(UUID uploadId, String rendition, Map<String, Path> leakedSegments) {
+        List<String> segmentNames = playlistManifestService.segmentNames(uploadId, rendition);
+        Map<Long, Character> variants = new HashMap<>();
+
+        leakedSegments.forEach((segmentName, leaked) -> {
+            int index = segmentNames.indexOf(segmentName);
+            if (index < 0) {
+                log.warn("Segmento vazado {} não pertence à playlist de {}", segmentName, uploadId);
+                return;
+            }
+            double leakedDelta = markDelta(leaked);
+            double distanceA = Math.abs(leakedDelta - markDelta(storageService.localPath(key(uploadId, rendition, segmentName, ForensicCode.VARIANT_A))));
+            double distanceB = Math.abs(leakedDelta - markDelta(storageService.localPath(key(uploadId, rendition, segmentName, ForensicCode.VARIANT_B))));
+            if (distanceA == distanceB) {
+                log.warn("Segmento vazado {} não distingue as variantes de {}", segmentName, uploadId);
+                return;
+            }
+            variants.put((long) index, distanceA < distanceB ? ForensicCode.VARIANT_A : ForensicCode.VARIANT_B);
+        });
+
+        return ForensicCode.decode(variants);
+    }
+
+    private void generateVariant(Path source, Path target, char variant, String rendition) {
+        Path temp = target.resolveSibling(TEMP_PREFIX + UUID.randomUUID() + "_" + target.getFileName());
+        try {
+            Files.createDirectories(target.getParent());
+            ffmpegService.addForensicVariant(source, temp, variant, rendition);
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            log.error("Erro ao publicar variante forense: {}", target, e);
+            throw new ArquivoIOException();
+        } finally {
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException e) {
+                log.warn("Erro ao remover arquivo temporário: {}", temp, e);
+            }
+        }
+    }
+
+    private void deleteRecursively(Path dir) {
+        if (dir == null) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        } catch (IOException e) {
+            log.warn("Erro ao remover diretório temporário: {}", dir, e);
+        }
+    }
+
+    private Path forensicDir(UUID uploadId) {
+        return StorageKeys.local(uploadId, FORENSIC_DIR);
+    }
+
+    private double markDelta(Path segment) {
+        double[] luma = ffmpegService.forensicMarkLuma(segment);
+        return luma[0] - luma[1];
+    }
+}
@@ -0,0 +1,216 @@
+package com.sachetto.streaming.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.DoubleConsumer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.sachetto.streaming.config.RenditionLadder.Rendition;
+import com.sachetto.streaming.entity.TranscodeJobStatus;
+import com.sachetto.streaming.repository.TranscodeJobRepository;
+import com.sachetto.streaming.util.StorageKeys;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class HlsPackagingService {
+
+    private static final Set<TranscodeJobStatus> JOB_ACTIVE_STATUS = Set.of(
+            TranscodeJobStatus.PENDING, TranscodeJobStatus.RUNNING, TranscodeJobStatus.SUCCESS);
+
+    private static final class PackagingSession {
+        private final UUID uploadId;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final AtomicLong nextChunk = new AtomicLong(1);
+        private volatile Process process;
+        private volatile OutputStream stdin;
+        private volatile DoubleConsumer onProgress = _ -> { };
+        private volatile long lastActivity = System.currentTimeMillis();
+        private volatile boolean closed;
+
+        private PackagingSession(UUID uploadId) {
+            this.uploadId = uploadId;
+        }
+    }
+
+    private final FFmpegService ffmpegService;
+    private final ChunkService chunkService;
+    private final PlaylistManifestService playlistManifestService;
+    private final TranscodeJobRepository transcodeJobRepository;
+
+    private final Map<UUID, PackagingSession> sessions = new ConcurrentHashMap<>();
+    private ThreadPoolExecutor executor;
+
+    @Value("${streaming.config.packaging.enabled:true}")
+    private boolean enabled;
+
+    @Value("${streaming.config.packaging.workers:2}")
+    private int workers;
+
+    @Value("${streaming.config.packaging.idle_timeout_ms:600000}")
+    private long idleTimeoutMillis;
+
+    @PostConstruct
+    void start() {
+        executor = new ThreadPoolExecutor(
+                workers, workers,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(1024),
+                Thread.ofPlatform().name("packaging-", 0).daemon(true).factory(),
+                new ThreadPoolExecutor.DiscardPolicy());
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdownNow();
+        sessions.keySet().forEach(this::abort);
+    }
+
+    public void onChunkStored(UUID uploadId) {
+        if (!enabled) {
+            return;
+        }
+        executor.execute(() -> {
+            try {
+                if (!sessions.containsKey(uploadId) && transcodeJobRepository.existsByFileIdAndStatusIn(uploadId, JOB_ACTIVE_STATUS)) {
+                    log.debug("Upload {} já possui job de transcodificação, chunk ignorado pelo empacotamento incremental", uploadId);
+                    return;
+                }
+                feed(sessions.computeIfAbsent(uploadId, PackagingSession::new));
+            } catch (RuntimeException e) {
+                log.warn("Falha no empacotamento HLS incremental para uploadId={}", uploadId, e);
+                abort(uploadId);
+            }
+        });
+    }
+
+    public boolean finish(UUID uploadId, long totalChunks, DoubleConsumer onProgress) {
+        PackagingSession session = sessions.get(uploadId);
+        if (session == null) {
+            return false;
+        }
+
+        session.onProgress = onProgress;
+        session.lock.lock();
+        try {
+            if (session.closed) {
+                return false;
+            }
+            feedContiguous(session, totalChunks);
+            if (session.stdin == null || session.nextChunk.get() <= totalChunks) {
+                log.warn("Empacotamento incremental de {} parou no chunk {}. Esperado: {}", uploadId, session.nextChunk.get() - 1, totalChunks);
+                abort(uploadId);
+                return false;
+            }
+            close(session);
+        } catch (RuntimeException e) {
+            log.warn("Falha ao concluir empacotamento incremental de {}", uploadId, e);
+            abort(uploadId);
+            return false;
+        } finally {
+            session.lock.unlock();
+        }
+
+        try {
+            int exitCode = session.process.waitFor();
+            sessions.remove(uploadId, session);
+            if (exitCode != 0) {
+                log.error("Empacotador HLS incremental de {} terminou com código {}", uploadId, exitCode);
+                return false;
+            }
+            log.info("Empacotamento HLS incremental concluído para uploadId: {}", uploadId);
+            return true;
+        } catch (InterruptedException _) {
+            Thread.currentThread().interrupt();
+            abort(uploadId);
+            return false;
+        }
+    }
+
+    public void abort(UUID uploadId) {
+        PackagingSession session = sessions.remove(uploadId);
+        if (session == null) {
+            return;
+        }
+        session.closed = true;
+        if (session.process != null) {
+            log.info("Abortando empacotamento HLS incremental de {}", uploadId);
+            session.process.destroyForcibly();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${streaming.config.packaging.sweep_ms:60000}")
+    public void abortIdle() {
+        long limite = System.currentTimeMillis() - idleTimeoutMillis;
+        sessions.values().stream()
+                .filter(session -> session.lastActivity < limite)
+                .map(session -> session.uploadId)
+                .toList()
+                .forEach(uploadId -> {
+                    log.warn("Empacotamento HLS incremental de {} ocioso, encerrando", uploadId);
+                    abort(uploadId);
+                });
+    }
+
+    private void feed(PackagingSession session) {
+        do {
+            if (!session.lock.tryLock()) {
+                return;
+            }
+            try {
+                feedContiguous(session, Long.MAX_VALUE);
+            } finally {
+                session.lock.unlock();
+            }
+        } while (!session.closed && chunkService.isChunkRegistered(session.uploadId, session.nextChunk.get()));
+    }
+
+    private void feedContiguous(PackagingSession session, long lastChunk) {
+        while (!session.closed
+                && session.nextChunk.get() <= lastChunk
+                && chunkService.isChunkRegistered(session.uploadId, session.nextChunk.get())) {
+            long index = session.nextChunk.get();
+            Path chunkPath = StorageKeys.local(StorageKeys.chunk(session.uploadId, index));
+            if (session.process == null) {
+                List<Rendition> renditions = ffmpegService.renditionsFor(chunkPath);
+                session.process = ffmpegService.startHlsPackager(session.uploadId, ffmpegService.hasAudio(chunkPath), renditions,
+                        seconds -> session.onProgress.accept(seconds));
+                session.stdin = session.process.getOutputStream();
+                playlistManifestService.publishMaster(session.uploadId, renditions);
+            }
+
+            ffmpegService.remuxToMpegts(chunkPath, session.stdin);
+            session.nextChunk.incrementAndGet();
+            session.lastActivity = System.currentTimeMillis();
+            log.debug("Chunk {} enviado ao empacotador HLS de {}", index, session.uploadId);
+        }
+    }
+
+    private void close(PackagingSession session) {
+        session.closed = true;
+        try {
+            session.stdin.close();
+        } catch (IOException e) {
+            log.warn("Erro ao fechar entrada do empacotador HLS de {}", session.uploadId, e);
+        }
+    }
+}
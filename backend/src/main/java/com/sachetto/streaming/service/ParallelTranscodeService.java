@@ -0,0 +1,127 @@
+package com.sachetto.streaming.service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.function.Consumer;
+import java.util.function.DoubleConsumer;
+import java.util.stream.IntStream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.sachetto.streaming.config.RenditionLadder.Rendition;
+import com.sachetto.streaming.exception.ArquivoIOException;
+import com.sachetto.streaming.service.PlaylistManifestService.HlsPlaylist;
+import com.sachetto.streaming.service.PlaylistManifestService.HlsSegment;
+import com.sachetto.streaming.util.StorageKeys;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ParallelTranscodeService {
+
+
+    private final FFmpegService ffmpegService;
+    private final PlaylistManifestService playlistManifestService;
+
+    private ForkJoinPool pool;
+    private int threadsPorParte;
+
+    @Value("${streaming.config.transcode.parallelism:0}")
+    private int parallelism;
+
+    @PostConstruct
+    void start() {
+        int cores = Runtime.getRuntime().availableProcessors();
+        int size = parallelism > 0 ? parallelism : cores;
+        threadsPorParte = Math.max(1, cores / size);
+        log.info("Iniciando pool de transcodificação paralela com {} partes simultâneas e {} threads por parte", size, threadsPorParte);
+        pool = new ForkJoinPool(size);
+    }
+
+    @PreDestroy
+    void stop() {
+        pool.shutdownNow();
+    }
+
+    public void formatHLS(List<String> chunksPath, UUID uploadId, List<Rendition> renditions, DoubleConsumer onProgress) {
+        log.info("Iniciando formatação HLS paralela de {} partes para uploadId: {}", chunksPath.size(), uploadId);
+        boolean hasAudio = ffmpegService.hasAudio(Paths.get(chunksPath.getFirst()));
+        List<String> renditionNames = PlaylistManifestService.names(renditions);
+        DoubleAdder segundosConcluidos = new DoubleAdder();
+        Set<Process> processes = ConcurrentHashMap.newKeySet();
+        AtomicBoolean aborted = new AtomicBoolean();
+        Consumer<Process> track = process -> {
+            processes.add(process);
+            process.onExit().thenRun(() -> processes.remove(process));
+            if (aborted.get()) {
+                process.destroyForcibly();
+            }
+        };
+
+        List<ForkJoinTask<List<HlsPlaylist>>> tasks = IntStream.range(0, chunksPath.size())
+                .mapToObj(i -> pool.submit(() -> {
+                    List<HlsPlaylist> parts = transcodePart(Paths.get(chunksPath.get(i)), uploadId, i + 1L, hasAudio, renditions, renditionNames, track);
+                    segundosConcluidos.add(parts.getFirst().segments().stream().mapToDouble(HlsSegment::duration).sum());
+                    onProgress.accept(segundosConcluidos.sum());
+                    return parts;
+                }))
+                .toList();
+
+        List<List<HlsPlaylist>> parts;
+        try {
+            parts = tasks.stream().map(ForkJoinTask::join).toList();
+        } catch (RuntimeException e) {
+            aborted.set(true);
+            tasks.forEach(task -> task.cancel(true));
+            log.warn("Encerrando {} processos FFmpeg de partes paralelas após falha do uploadId: {}", processes.size(), uploadId);
+            processes.forEach(Process::destroyForcibly);
+            throw e;
+        }
+
+        for (int r = 0; r < renditionNames.size(); r++) {
+            int rendition = r;
+            List<HlsPlaylist> renditionParts = parts.stream().map(part -> part.get(rendition)).toList();
+            playlistManifestService.publish(uploadId, renditionNames.get(r), PlaylistManifestService.stitch(renditionParts));
+        }
+        playlistManifestService.publishMaster(uploadId, renditions);
+        log.info("HLS paralelo publicado para uploadId: {}", uploadId);
+        ffmpegService.deleteChunks(chunksPath);
+    }
+
+    private List<HlsPlaylist> transcodePart(Path chunkPath, UUID uploadId, long part, boolean hasAudio, List<Rendition> renditions,
+            List<String> renditionNames, Consumer<Process> onStart) {
+        ffmpegService.transcodeHlsPart(chunkPath, uploadId, part, threadsPorParte, hasAudio, renditions, onStart);
+
+        Path uploadDir = StorageKeys.local(uploadId);
+        String partPlaylistName = FFmpegService.partName(part) + ".m3u8";
+        List<HlsPlaylist> playlists = new ArrayList<>();
+        for (String rendition : renditionNames) {
+            Path partPlaylist = rendition == null ? uploadDir.resolve(partPlaylistName) : uploadDir.resolve(rendition).resolve(partPlaylistName);
+            try {
+                playlists.add(PlaylistManifestService.parse(Files.readString(partPlaylist)));
+                Files.deleteIfExists(partPlaylist);
+            } catch (IOException e) {
+                log.error("Erro ao ler playlist parcial: {}", partPlaylist, e);
+                throw new ArquivoIOException();
+            }
+        }
+        return playlists;
+    }
+}
@@ -0,0 +1,393 @@
+package com.sachetto.streaming.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.UnaryOperator;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.sachetto.streaming.config.RenditionLadder;
+import com.sachetto.streaming.config.RenditionLadder.Rendition;
+import com.sachetto.streaming.exception.ArquivoIOException;
+import com.sachetto.streaming.util.StorageKeys;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PlaylistManifestService {
+
+    private static final String PLAYLIST_NAME = "playlist.m3u8";
+    private static final String MASTER_PLAYLIST_NAME = "master.m3u8";
+    private static final String STREAM_INF_TAG = "#EXT-X-STREAM-INF:";
+    private static final String EXTINF_TAG = "#EXTINF:";
+    private static final String ENDLIST_TAG = "#EXT-X-ENDLIST";
+    private static final String EXTM3U_TAG = "#EXTM3U";
+    private static final String PLAYLIST_TYPE_TAG = "#EXT-X-PLAYLIST-TYPE:";
+    private static final String TARGET_DURATION_TAG = "#EXT-X-TARGETDURATION:";
+    private static final String TOKEN_PARAM = "wm";
+
+    public record HlsSegment(String uri, double duration, List<String> tags) { }
+
+    public record HlsPlaylist(List<String> header, List<HlsSegment> segments, boolean endList) {
+
+        public List<String> segmentNames() {
+            return segments.stream().map(HlsSegment::uri).toList();
+        }
+    }
+
+    public record EncodedPlaylist(byte[] body, byte[] gzipBody, String etag) { }
+
+    private record PlaylistKey(UUID uploadId, String rendition) { }
+
+    private record EncodedKey(UUID uploadId, String rendition, String token) { }
+
+    private record Bandwidth(long peak, long average) { }
+
+    private final StorageService storageService;
+    private final RenditionLadder renditionLadder;
+
+    @Value("${streaming.config.playlist.cache_size:1000}")
+    private int cacheSize;
+
+    private Map<PlaylistKey, HlsPlaylist> playlists;
+    private Map<EncodedKey, EncodedPlaylist> encoded;
+    private Map<UUID, EncodedPlaylist> masters;
+
+    @PostConstruct
+    void init() {
+        playlists = lruMap(cacheSize);
+        encoded = lruMap(cacheSize);
+        masters = lruMap(cacheSize);
+    }
+
+    public HlsPlaylist playlist(UUID uploadId, String rendition) {
+        PlaylistKey key = new PlaylistKey(uploadId, rendition);
+        HlsPlaylist playlist = playlists.get(key);
+        if (playlist != null) {
+            return playlist;
+        }
+
+        String playlistKey = playlistKey(uploadId, rendition);
+        log.debug("Loading playlist from: {}", playlistKey);
+        playlist = parse(read(playlistKey));
+
+        if (playlist.endList()) {
+            playlists.put(key, playlist);
+        }
+        return playlist;
+    }
+
+    public List<String> segmentNames(UUID uploadId, String rendition) {
+        return playlist(uploadId, rendition).segmentNames();
+    }
+
+    public EncodedPlaylist encoded(UUID uploadId, String rendition, String token) {
+        EncodedKey key = new EncodedKey(uploadId, rendition, token);
+        EncodedPlaylist cached = encoded.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        HlsPlaylist playlist = playlist(uploadId, rendition);
+        UnaryOperator<String> uriMapper = token == null
+                ? UnaryOperator.identity()
+                : uri -> uri + "?" + TOKEN_PARAM + "=" + URLEncoder.encode(token, StandardCharsets.UTF_8);
+        EncodedPlaylist result = encode(render(playlist, uriMapper));
+
+        if (playlist.endList()) {
+            encoded.put(key, result);
+        }
+        return result;
+    }
+
+    public EncodedPlaylist master(UUID uploadId) {
+        EncodedPlaylist cached = masters.get(uploadId);
+        if (cached != null) {
+            return cached;
+        }
+
+        String masterKey = masterKey(uploadId);
+        if (!storageService.exists(masterKey)) {
+            return null;
+        }
+        EncodedPlaylist result = encode(read(masterKey));
+        masters.put(uploadId, result);
+        return result;
+    }
+
+    public String sourceRendition(UUID uploadId) {
+        if (storageService.exists(masterKey(uploadId))) {
+            try {
+                Path variant = Paths.get(parse(read(masterKey(uploadId))).segments().getFirst().uri());
+                return variant.getNameCount() > 1 ? variant.getName(0).toString() : null;
+            } catch (RuntimeException e) {
+                log.warn("Master playlist inválida para {}, usando playlist principal", uploadId, e);
+            }
+        }
+        return null;
+    }
+
+    public void publishMaster(UUID uploadId, List<Rendition> renditions) {
+        if (renditions.isEmpty()) {
+            return;
+        }
+
+        StringBuilder sb = new StringBuilder(EXTM3U_TAG).append('\n').append("#EXT-X-VERSION:3\n");
+        for (Rendition rendition : renditions) {
+            Bandwidth bandwidth = measureBandwidth(uploadId, rendition.name());
+            sb.append(STREAM_INF_TAG);
+            if (bandwidth != null) {
+                sb.append("BANDWIDTH=").append(bandwidth.peak())
+                        .append(",AVERAGE-BANDWIDTH=").append(bandwidth.average());
+            } else {
+                sb.append("BANDWIDTH=").append(rendition.bandwidth());
+            }
+            sb.append(",RESOLUTION=").append(rendition.width()).append('x').append(rendition.height())
+                    .append('\n')
+                    .append(rendition.name()).append('/').append(PLAYLIST_NAME).append('\n');
+        }
+        write(masterPath(uploadId), sb.toString());
+        masters.remove(uploadId);
+    }
+
+    public void publishAsVod(UUID uploadId, List<Rendition> renditions) {
+        for (String rendition : names(renditions)) {
+            Path path = playlistPath(uploadId, rendition);
+            HlsPlaylist playlist;
+            try {
+                playlist = parse(Files.readString(path));
+            } catch (IOException e) {
+                log.error("Erro ao ler playlist: {}", path, e);
+                throw new ArquivoIOException();
+            }
+            publish(uploadId, rendition, new HlsPlaylist(vodHeader(playlist.header(), null), playlist.segments(), true));
+        }
+    }
+
+    public void publish(UUID uploadId, String rendition, HlsPlaylist playlist) {
+        write(playlistPath(uploadId, rendition), render(playlist, UnaryOperator.identity()));
+        evict(uploadId);
+    }
+
+    public List<String> renditionNames(UUID uploadId) {
+        String masterKey = masterKey(uploadId);
+        if (!renditionLadder.isEnabled() || !storageService.exists(masterKey)) {
+            return names(renditionLadder.renditions());
+        }
+        return parse(read(masterKey)).segments().stream()
+                .map(variant -> Paths.get(variant.uri()).getName(0).toString())
+                .toList();
+    }
+
+    public static List<String> names(List<Rendition> renditions) {
+        if (renditions.isEmpty()) {
+            return Collections.singletonList(null);
+        }
+        return renditions.stream().map(Rendition::name).toList();
+    }
+
+    public static HlsPlaylist stitch(List<HlsPlaylist> parts) {
+        List<HlsSegment> segments = new ArrayList<>();
+        double maxDuration = 0d;
+        for (HlsPlaylist part : parts) {
+            for (HlsSegment segment : part.segments()) {
+                segments.add(segment);
+                maxDuration = Math.max(maxDuration, segment.duration());
+            }
+        }
+        return new HlsPlaylist(vodHeader(parts.getFirst().header(), (int) Math.ceil(maxDuration)), segments, true);
+    }
+
+    private static List<String> vodHeader(List<String> header, Integer targetDuration) {
+        List<String> result = new ArrayList<>();
+        result.add(header.isEmpty() ? EXTM3U_TAG : header.getFirst());
+        result.add(PLAYLIST_TYPE_TAG + "VOD");
+        for (String line : header.stream().skip(1).toList()) {
+            if (line.startsWith(PLAYLIST_TYPE_TAG)) {
+                continue;
+            }
+            result.add(targetDuration != null && line.startsWith(TARGET_DURATION_TAG) ? TARGET_DURATION_TAG + targetDuration : line);
+        }
+        return result;
+    }
+
+    public void evict(UUID uploadId) {
+        masters.remove(uploadId);
+        synchronized (playlists) {
+            playlists.keySet().removeIf(key -> key.uploadId().equals(uploadId));
+        }
+        synchronized (encoded) {
+            encoded.keySet().removeIf(key -> key.uploadId().equals(uploadId));
+        }
+    }
+
+    private Bandwidth measureBandwidth(UUID uploadId, String rendition) {
+        Path path = playlistPath(uploadId, rendition);
+        if (Files.notExists(path)) {
+            return null;
+        }
+
+        try {
+            double peak = 0;
+            double bits = 0;
+            double seconds = 0;
+            for (HlsSegment segment : parse(Files.readString(path)).segments()) {
+                if (segment.duration() <= 0) {
+                    continue;
+                }
+                long segmentBits = Files.size(path.resolveSibling(segment.uri())) * 8;
+                peak = Math.max(peak, segmentBits / segment.duration());
+                bits += segmentBits;
+                seconds += segment.duration();
+            }
+            return seconds > 0 ? new Bandwidth((long) Math.ceil(peak), (long) Math.ceil(bits / seconds)) : null;
+        } catch (IOException e) {
+            log.warn("Não foi possível medir a taxa de bits de {}, usando valor nominal", path, e);
+            return null;
+        }
+    }
+
+    private String playlistKey(UUID uploadId, String rendition) {
+        return StorageKeys.of(uploadId, rendition, PLAYLIST_NAME);
+    }
+
+    private String masterKey(UUID uploadId) {
+        return StorageKeys.of(uploadId, MASTER_PLAYLIST_NAME);
+    }
+
+    private Path playlistPath(UUID uploadId, String rendition) {
+        return StorageKeys.local(playlistKey(uploadId, rendition));
+    }
+
+    private Path masterPath(UUID uploadId) {
+        return StorageKeys.local(masterKey(uploadId));
+    }
+
+    private String read(String key) {
+        try (InputStream is = storageService.open(key)) {
+            return new String(is.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            log.error("Erro ao ler playlist: {}", key, e);
+            throw new ArquivoIOException();
+        }
+    }
+
+    private void write(Path path, String content) {
+        try {
+            Files.createDirectories(path.getParent());
+            Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+            Files.writeString(temp, content);
+            Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            log.error("Erro ao publicar playlist: {}", path, e);
+            throw new ArquivoIOException();
+        }
+    }
+
+    public static HlsPlaylist parse(String content) {
+        List<String> header = new ArrayList<>();
+        List<HlsSegment> segments = new ArrayList<>();
+        List<String> pendingTags = new ArrayList<>();
+        Double pendingDuration = null;
+        boolean endList = false;
+
+        for (String rawLine : content.split("\\R")) {
+            String line = rawLine.trim();
+            if (line.isEmpty()) {
+                continue;
+            }
+
+            if (line.equals(ENDLIST_TAG)) {
+                endList = true;
+            } else if (line.startsWith(EXTINF_TAG)) {
+                pendingDuration = parseDuration(line);
+            } else if (line.startsWith("#")) {
+                if (segments.isEmpty() && pendingDuration == null) {
+                    header.add(line);
+                } else {
+                    pendingTags.add(line);
+                }
+            } else {
+                segments.add(new HlsSegment(line, pendingDuration != null ? pendingDuration : 0d, List.copyOf(pendingTags)));
+                pendingTags.clear();
+                pendingDuration = null;
+            }
+        }
+
+        return new HlsPlaylist(List.copyOf(header), List.copyOf(segments), endList);
+    }
+
+    public static String render(HlsPlaylist playlist, UnaryOperator<String> uriMapper) {
+        StringBuilder sb = new StringBuilder();
+        playlist.header().forEach(line -> sb.append(line).append('\n'));
+        for (HlsSegment segment : playlist.segments()) {
+            segment.tags().forEach(tag -> sb.append(tag).append('\n'));
+            sb.append(EXTINF_TAG).append(String.format(Locale.ROOT, "%.6f", segment.duration())).append(",\n");
+            sb.append(uriMapper.apply(segment.uri())).append('\n');
+        }
+        if (playlist.endList()) {
+            sb.append(ENDLIST_TAG).append('\n');
+        }
+        return sb.toString();
+    }
+
+    private static double parseDuration(String line) {
+        String value = line.substring(EXTINF_TAG.length());
+        int comma = value.indexOf(',');
+        try {
+            return Double.parseDouble(comma >= 0 ? value.substring(0, comma) : value);
+        } catch (NumberFormatException _) {
+            return 0d;
+        }
+    }
+
+    private EncodedPlaylist encode(String content) {
+        byte[] body = content.getBytes(StandardCharsets.UTF_8);
+        try {
+            ByteArrayOutputStream gzip = new ByteArrayOutputStream(body.length / 2);
+            try (GZIPOutputStream os = new GZIPOutputStream(gzip)) {
+                os.write(body);
+            }
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            String etag = "\"" + HexFormat.of().formatHex(digest.digest(body)) + "\"";
+            return new EncodedPlaylist(body, gzip.toByteArray(), etag);
+        } catch (IOException | NoSuchAlgorithmException e) {
+            log.error("Erro ao codificar playlist", e);
+            throw new ArquivoIOException();
+        }
+    }
+
+    private static <K, V> Map<K, V> lruMap(int maxEntries) {
+        return Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > maxEntries;
+            }
+        });
+    }
+}
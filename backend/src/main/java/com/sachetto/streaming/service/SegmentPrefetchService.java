@@ -0,0 +1,138 @@
+package com.sachetto.streaming.service;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.sachetto.streaming.exception.ArquivoIOException;
+import com.sachetto.streaming.exception.FFmpegSaturadoException;
+import com.sachetto.streaming.service.WatermarkSegmentCache.SegmentKey;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SegmentPrefetchService {
+
+    private final SegmentRenderService segmentRenderService;
+    private final PlaylistManifestService playlistManifestService;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${streaming.config.prefetch.enabled:true}")
+    private boolean enabled;
+
+    @Value("${streaming.config.prefetch.workers:2}")
+    private int workers;
+
+    @Value("${streaming.config.prefetch.queue_capacity:64}")
+    private int queueCapacity;
+
+    @Value("${streaming.config.prefetch.min_ahead:1}")
+    private int minAhead;
+
+    @Value("${streaming.config.prefetch.max_ahead:5}")
+    private int maxAhead;
+
+    @Value("${streaming.config.prefetch.startup_segments:2}")
+    private int startupSegments;
+
+    @Value("${streaming.config.hls.segment_seconds:4}")
+    private int segmentSeconds;
+
+    private ThreadPoolExecutor executor;
+    private Counter scheduled;
+    private Counter dropped;
+    private Timer startupStall;
+    private Timer playbackStall;
+
+    @PostConstruct
+    void start() {
+        executor = new ThreadPoolExecutor(
+                workers, workers,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                Thread.ofPlatform().name("prefetch-", 0).daemon(true).factory(),
+                (task, pool) -> dropped.increment());
+
+        scheduled = Counter.builder("streaming.prefetch.scheduled").register(meterRegistry);
+        dropped = Counter.builder("streaming.prefetch.dropped").register(meterRegistry);
+        startupStall = Timer.builder("streaming.playback.stall").tag("phase", "start").register(meterRegistry);
+        playbackStall = Timer.builder("streaming.playback.stall").tag("phase", "playback").register(meterRegistry);
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdownNow();
+    }
+
+    public void schedule(UUID uploadId, String codigo, String rendition, String segmentName) {
+        if (!enabled) {
+            return;
+        }
+
+        List<String> segments = segments(uploadId, rendition);
+        int position = segments.indexOf(segmentName);
+        if (position < 0) {
+            return;
+        }
+
+        int ahead = readAhead();
+        int last = Math.min(segments.size() - 1, position + ahead);
+        for (int i = position + 1; i <= last; i++) {
+            String next = segments.get(i);
+            SegmentKey key = new SegmentKey(uploadId, codigo, rendition, next);
+            if (segmentRenderService.isCached(key) || segmentRenderService.isRendering(key)) {
+                continue;
+            }
+
+            scheduled.increment();
+            executor.execute(() -> prefetch(key));
+        }
+    }
+
+    public void recordStall(UUID uploadId, String rendition, String segmentName, long nanos) {
+        int position = segments(uploadId, rendition).indexOf(segmentName);
+        Timer timer = position >= 0 && position < startupSegments ? startupStall : playbackStall;
+        timer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    private int readAhead() {
+        double renderMillis = segmentRenderService.averageRenderMillis();
+        if (renderMillis <= 0) {
+            return minAhead;
+        }
+        int ahead = (int) Math.ceil(renderMillis / (segmentSeconds * 1000d)) + 1;
+        return Math.clamp(ahead, minAhead, maxAhead);
+    }
+
+    private void prefetch(SegmentKey key) {
+        try {
+            segmentRenderService.prefetch(key);
+        } catch (FFmpegSaturadoException _) {
+            log.debug("Pré-render do segmento {} descartado, FFmpeg saturado", key.segmentName());
+        } catch (RuntimeException e) {
+            log.warn("Falha no pré-render do segmento {} para uploadId={}", key.segmentName(), key.uploadId(), e);
+        }
+    }
+
+    private List<String> segments(UUID uploadId, String rendition) {
+        try {
+            return playlistManifestService.segmentNames(uploadId, rendition);
+        } catch (ArquivoIOException _) {
+            log.debug("Playlist indisponível para pré-render: {}", uploadId);
+            return List.of();
+        }
+    }
+}
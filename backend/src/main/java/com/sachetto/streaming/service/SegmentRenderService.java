@@ -0,0 +1,137 @@
+package com.sachetto.streaming.service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.stereotype.Service;
+
+import com.sachetto.streaming.exception.ArquivoIOException;
+import com.sachetto.streaming.exception.FFmpegSaturadoException;
+import com.sachetto.streaming.service.FFmpegProcessPool.JobClass;
+import com.sachetto.streaming.service.WatermarkSegmentCache.SegmentKey;
+import com.sachetto.streaming.util.SingleFlight;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SegmentRenderService {
+
+    private static final double EWMA_ALPHA = 0.2;
+
+    private final FFmpegService ffmpegService;
+    private final WatermarkSegmentCache watermarkSegmentCache;
+    private final MeterRegistry meterRegistry;
+
+    private final SingleFlight<SegmentKey, Path> renders = new SingleFlight<>();
+    private Counter coalesced;
+    private Timer renderTimer;
+    private double averageRenderMillis;
+
+    @PostConstruct
+    void init() {
+        coalesced = Counter.builder("streaming.watermark.render.coalesced").register(meterRegistry);
+        renderTimer = Timer.builder("streaming.watermark.render").register(meterRegistry);
+    }
+
+    public boolean isCached(SegmentKey key) {
+        return watermarkSegmentCache.peek(key) != null;
+    }
+
+    public boolean isRendering(SegmentKey key) {
+        return renders.isInFlight(key);
+    }
+
+    public synchronized double averageRenderMillis() {
+        return averageRenderMillis;
+    }
+
+    public void prefetch(SegmentKey key) {
+        if (isCached(key) || isRendering(key)) {
+            return;
+        }
+        renders.execute(key, () -> render(key, JobClass.SEGMENT_PREFETCH));
+    }
+
+    public Path getOrRender(SegmentKey key) {
+        return getOrRender(key, JobClass.SEGMENT_WATERMARK);
+    }
+
+    public Path getOrRender(SegmentKey key, JobClass jobClass) {
+        Path cachedPath = watermarkSegmentCache.lookup(key);
+        if (cachedPath != null) {
+            log.debug("Serving cached watermarked segment: {}", cachedPath);
+            return cachedPath;
+        }
+        AtomicBoolean shared = new AtomicBoolean();
+        try {
+            return renders.execute(key, () -> render(key, jobClass), () -> {
+                shared.set(true);
+                coalesced.increment();
+            });
+        } catch (FFmpegSaturadoException e) {
+            if (!shared.get()) {
+                throw e;
+            }
+            // O render compartilhado pode ter sido um pré-render descartado por falta de vaga: tenta na própria classe
+            return renders.execute(key, () -> render(key, jobClass), coalesced::increment);
+        }
+    }
+
+    private Path render(SegmentKey key, JobClass jobClass) {
+        Path cachedPath = watermarkSegmentCache.peek(key);
+        if (cachedPath != null) {
+            return cachedPath;
+        }
+
+        Path target = watermarkSegmentCache.resolve(key);
+        Path temp = target.resolveSibling(WatermarkSegmentCache.TEMP_PREFIX + UUID.randomUUID() + "_" + key.segmentName());
+
+        try {
+            Files.createDirectories(target.getParent());
+
+            log.info("Generating watermark for segment: {}", key.segmentName());
+            long inicio = System.nanoTime();
+            ffmpegService.addWatermark(watermarkSegmentCache.source(key), temp, key.codigo(), key.rendition(), jobClass);
+            if (jobClass != JobClass.EXPORT_RENDER) {
+                recordRenderTime(System.nanoTime() - inicio);
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+            watermarkSegmentCache.register(key, target);
+            return target;
+        } catch (IOException e) {
+            log.error("Erro ao publicar segmento com marca d'água: {}", target, e);
+            throw new ArquivoIOException();
+        } finally {
+            deleteQuietly(temp);
+        }
+    }
+
+    private void recordRenderTime(long nanos) {
+        renderTimer.record(nanos, TimeUnit.NANOSECONDS);
+        double millis = nanos / 1_000_000d;
+        synchronized (this) {
+            averageRenderMillis = averageRenderMillis == 0 ? millis : averageRenderMillis * (1 - EWMA_ALPHA) + millis * EWMA_ALPHA;
+        }
+    }
+
+    private void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Erro ao remover arquivo temporário: {}", path, e);
+        }
+    }
+}
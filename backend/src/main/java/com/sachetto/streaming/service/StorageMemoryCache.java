@@ -0,0 +1,328 @@
+package com.sachetto.streaming.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.sachetto.streaming.util.ByteBufferResource;
+import com.sachetto.streaming.util.CheckSumUtil;
+import com.sachetto.streaming.util.FrequencySketch;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class StorageMemoryCache {
+
+    private static final String METRIC_PREFIX = "streaming.storage.memory";
+    private static final String TIER_METRIC_PREFIX = "streaming.storage.tier";
+    private static final String TIER = "memory";
+    private static final long AVERAGE_ENTRY_BYTES = 256 * 1024;
+
+    private record Entry(ByteBuffer content, String etag, long lastModified) {
+        long size() {
+            return content.capacity();
+        }
+    }
+
+    private record Victims(List<String> keys, int frequency, boolean sufficient) { }
+
+    private final MeterRegistry meterRegistry;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<String, Entry> window = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<String, Entry> main = new LinkedHashMap<>(16, 0.75f, true);
+    private final Set<String> loading = new HashSet<>();
+    private ThreadPoolExecutor loader;
+    private FrequencySketch<String> sketch;
+    private long windowMaxBytes;
+    private long mainMaxBytes;
+    private long windowBytes;
+    private long mainBytes;
+    private Counter hits;
+    private Counter misses;
+    private Counter admitted;
+    private Counter rejected;
+
+    @Value("${streaming.config.storage.memory.enabled:true}")
+    private boolean enabled;
+
+    @Value("${streaming.config.storage.memory.max_bytes:268435456}")
+    private long maxBytes;
+
+    @Value("${streaming.config.storage.memory.max_object_bytes:8388608}")
+    private long maxObjectBytes;
+
+    @Value("${streaming.config.storage.memory.window_percent:1}")
+    private int windowPercent;
+
+    @Value("${streaming.config.storage.memory.min_frequency:2}")
+    private int minFrequency;
+
+    @Value("${streaming.config.storage.memory.load_queue:256}")
+    private int loadQueue;
+
+    @PostConstruct
+    void init() {
+        sketch = new FrequencySketch<>((int) Math.min(Integer.MAX_VALUE, Math.max(1024, maxBytes / AVERAGE_ENTRY_BYTES)));
+        windowMaxBytes = Math.max(maxBytes * windowPercent / 100, maxObjectBytes);
+        mainMaxBytes = Math.max(0, maxBytes - windowMaxBytes);
+
+        hits = Counter.builder(TIER_METRIC_PREFIX + ".requests").tag("tier", TIER).tag("result", "hit").register(meterRegistry);
+        misses = Counter.builder(TIER_METRIC_PREFIX + ".requests").tag("tier", TIER).tag("result", "miss").register(meterRegistry);
+        Gauge.builder(TIER_METRIC_PREFIX + ".hit_ratio", this, StorageMemoryCache::hitRatio).tag("tier", TIER).register(meterRegistry);
+        admitted = Counter.builder(METRIC_PREFIX + ".admissions").tag("result", "admitted").register(meterRegistry);
+        rejected = Counter.builder(METRIC_PREFIX + ".admissions").tag("result", "rejected").register(meterRegistry);
+        Gauge.builder(METRIC_PREFIX + ".size", this, cache -> cache.totalBytes()).baseUnit("bytes").register(meterRegistry);
+        Gauge.builder(METRIC_PREFIX + ".entries", this, cache -> cache.entries()).register(meterRegistry);
+
+        loader = new ThreadPoolExecutor(
+                1, 1,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(loadQueue),
+                Thread.ofPlatform().name("storage-memory-loader").daemon(true).factory());
+    }
+
+    @PreDestroy
+    void stop() {
+        loader.shutdownNow();
+    }
+
+    public ByteBufferResource get(String key, Path source) {
+        if (!enabled) {
+            return null;
+        }
+        sketch.increment(key);
+
+        Entry entry;
+        lock.lock();
+        try {
+            entry = window.get(key);
+            if (entry == null) {
+                entry = main.get(key);
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (entry == null || isStale(key, entry, source)) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return new ByteBufferResource(key, entry.content(), entry.etag(), entry.lastModified());
+    }
+
+    public void offer(String key, Path path) {
+        if (!enabled || sketch.frequency(key) < minFrequency) {
+            return;
+        }
+
+        long size;
+        try {
+            size = Files.size(path);
+        } catch (IOException _) {
+            return;
+        }
+        if (size == 0 || size > maxObjectBytes) {
+            return;
+        }
+
+        lock.lock();
+        try {
+            if (window.containsKey(key) || main.containsKey(key) || loading.contains(key)) {
+                return;
+            }
+            if (!admissible(key, victims(size))) {
+                rejected.increment();
+                return;
+            }
+            loading.add(key);
+        } finally {
+            lock.unlock();
+        }
+
+        try {
+            loader.execute(() -> load(key, path));
+        } catch (RejectedExecutionException _) {
+            lock.lock();
+            try {
+                loading.remove(key);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    public void invalidate(String key) {
+        lock.lock();
+        try {
+            loading.remove(key);
+            Entry removed = window.remove(key);
+            if (removed != null) {
+                windowBytes -= removed.size();
+            }
+            removed = main.remove(key);
+            if (removed != null) {
+                mainBytes -= removed.size();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void evictWindow() {
+        Iterator<Map.Entry<String, Entry>> iterator = window.entrySet().iterator();
+        while (windowBytes > windowMaxBytes && iterator.hasNext()) {
+            Map.Entry<String, Entry> candidate = iterator.next();
+            iterator.remove();
+            windowBytes -= candidate.getValue().size();
+            admit(candidate.getKey(), candidate.getValue());
+        }
+    }
+
+    private void admit(String key, Entry candidate) {
+        Victims victims = victims(candidate.size());
+        if (!admissible(key, victims)) {
+            rejected.increment();
+            return;
+        }
+        for (String victim : victims.keys()) {
+            mainBytes -= main.remove(victim).size();
+        }
+
+        main.put(key, candidate);
+        mainBytes += candidate.size();
+        admitted.increment();
+    }
+
+    private Victims victims(long size) {
+        long needed = mainBytes + size - mainMaxBytes;
+        List<String> keys = new ArrayList<>();
+        int frequency = 0;
+        long freed = 0;
+        Iterator<Map.Entry<String, Entry>> iterator = main.entrySet().iterator();
+        while (freed < needed && iterator.hasNext()) {
+            Map.Entry<String, Entry> victim = iterator.next();
+            keys.add(victim.getKey());
+            freed += victim.getValue().size();
+            frequency = Math.max(frequency, sketch.frequency(victim.getKey()));
+        }
+        return new Victims(keys, frequency, freed >= needed);
+    }
+
+    private boolean admissible(String key, Victims victims) {
+        return victims.sufficient() && (victims.keys().isEmpty() || sketch.frequency(key) > victims.frequency());
+    }
+
+    private void load(String key, Path path) {
+        Entry entry = null;
+        try {
+            entry = read(path);
+        } finally {
+            lock.lock();
+            try {
+                if (loading.remove(key) && entry != null) {
+                    window.put(key, entry);
+                    windowBytes += entry.size();
+                    evictWindow();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private boolean isStale(String key, Entry entry, Path source) {
+        if (source == null) {
+            return false;
+        }
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(source, BasicFileAttributes.class);
+            if (attributes.size() == entry.size() && attributes.lastModifiedTime().toMillis() == entry.lastModified()) {
+                return false;
+            }
+        } catch (NoSuchFileException _) {
+            log.debug("Arquivo em memória não existe mais no disco: {}", source);
+        } catch (IOException e) {
+            log.debug("Não foi possível validar {} na memória", source, e);
+        }
+        invalidate(key);
+        return true;
+    }
+
+    private Entry read(Path path) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            BasicFileAttributes before = Files.readAttributes(path, BasicFileAttributes.class);
+            long size = before.size();
+            if (size == 0 || size > maxObjectBytes) {
+                return null;
+            }
+            ByteBuffer content = ByteBuffer.allocateDirect((int) size);
+            while (content.hasRemaining()) {
+                if (channel.read(content) < 0) {
+                    return null;
+                }
+            }
+            content.flip();
+            BasicFileAttributes after = Files.readAttributes(path, BasicFileAttributes.class);
+            if (after.size() != size || !after.lastModifiedTime().equals(before.lastModifiedTime())) {
+                return null;
+            }
+            return new Entry(content, "\"" + CheckSumUtil.calculateHash(content) + "\"", before.lastModifiedTime().toMillis());
+        } catch (IOException e) {
+            log.debug("Não foi possível carregar {} na memória", path, e);
+            return null;
+        }
+    }
+
+    private double hitRatio() {
+        double total = hits.count() + misses.count();
+        return total == 0 ? 0 : hits.count() / total;
+    }
+
+    private long totalBytes() {
+        lock.lock();
+        try {
+            return windowBytes + mainBytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int entries() {
+        lock.lock();
+        try {
+            return window.size() + main.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
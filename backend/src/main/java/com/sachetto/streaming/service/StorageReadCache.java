@@ -0,0 +1,176 @@
+package com.sachetto.streaming.service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import com.sachetto.streaming.exception.ArquivoIOException;
+import com.sachetto.streaming.util.DiskLruIndex;
+import com.sachetto.streaming.util.SingleFlight;
+import com.sachetto.streaming.util.StorageKeys;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "streaming.config.storage.type", havingValue = "s3")
+public class StorageReadCache {
+
+    private static final String TEMP_PREFIX = ".tmp_";
+    private static final String METRIC_PREFIX = "streaming.storage.cache";
+    private static final String TIER_METRIC_PREFIX = "streaming.storage.tier";
+    private static final String TIER = "disk";
+
+    private final MeterRegistry meterRegistry;
+
+    private final SingleFlight<String, Path> fetches = new SingleFlight<>();
+    private Path root;
+    private DiskLruIndex<String> index;
+    private Counter hits;
+    private Counter misses;
+    private Counter coalesced;
+    private Counter evictions;
+
+    @Value("${streaming.config.storage.cache.dir:cache/storage}")
+    private String dir;
+
+    @Value("${streaming.config.storage.cache.max_bytes:5368709120}")
+    private long maxBytes;
+
+    @PostConstruct
+    void init() {
+        root = Paths.get(dir);
+        index = new DiskLruIndex<>(maxBytes);
+
+        hits = Counter.builder(TIER_METRIC_PREFIX + ".requests").tag("tier", TIER).tag("result", "hit").register(meterRegistry);
+        misses = Counter.builder(TIER_METRIC_PREFIX + ".requests").tag("tier", TIER).tag("result", "miss").register(meterRegistry);
+        Gauge.builder(TIER_METRIC_PREFIX + ".hit_ratio", this, StorageReadCache::hitRatio).tag("tier", TIER).register(meterRegistry);
+        coalesced = Counter.builder(METRIC_PREFIX + ".coalesced").register(meterRegistry);
+        evictions = Counter.builder(METRIC_PREFIX + ".evictions").register(meterRegistry);
+        Gauge.builder(METRIC_PREFIX + ".size", this, cache -> cache.index.totalBytes()).baseUnit("bytes").register(meterRegistry);
+        Gauge.builder(METRIC_PREFIX + ".entries", this, cache -> cache.index.size()).register(meterRegistry);
+
+        rebuildIndex();
+    }
+
+    public Path get(String key, Consumer<Path> fetcher) {
+        DiskLruIndex.Entry entry = index.get(key);
+        if (entry != null && Files.exists(entry.path())) {
+            hits.increment();
+            return entry.path();
+        }
+        misses.increment();
+        return fetches.execute(key, () -> fetch(key, fetcher), coalesced::increment);
+    }
+
+    public void invalidate(String key) {
+        DiskLruIndex.Entry removed = index.remove(key);
+        if (removed != null) {
+            delete(List.of(removed));
+        }
+    }
+
+    private Path fetch(String key, Consumer<Path> fetcher) {
+        Path target = root.resolve(key).normalize();
+        if (!target.startsWith(root.normalize())) {
+            log.error("Chave de armazenamento inválida: {}", key);
+            throw new ArquivoIOException();
+        }
+        Path temp = target.resolveSibling(TEMP_PREFIX + UUID.randomUUID() + "_" + target.getFileName());
+        try {
+            Files.createDirectories(target.getParent());
+            fetcher.accept(temp);
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            delete(index.put(key, target, Files.size(target)));
+            return target;
+        } catch (IOException e) {
+            log.error("Erro ao publicar objeto no cache local: {}", target, e);
+            throw new ArquivoIOException();
+        } finally {
+            deleteQuietly(temp);
+        }
+    }
+
+    private void delete(List<DiskLruIndex.Entry> evicted) {
+        for (DiskLruIndex.Entry entry : evicted) {
+            evictions.increment();
+            deleteQuietly(entry.path());
+        }
+    }
+
+    private void rebuildIndex() {
+        if (Files.notExists(root)) {
+            return;
+        }
+
+        try (Stream<Path> files = Files.walk(root)) {
+            files.filter(Files::isRegularFile)
+                    .filter(this::keepOrDiscard)
+                    .sorted(Comparator.comparing(StorageReadCache::lastModified))
+                    .forEach(this::register);
+        } catch (IOException e) {
+            log.warn("Falha ao reconstruir índice do cache de armazenamento", e);
+        }
+        log.info("Cache de armazenamento carregado: {} objetos, {} bytes", index.size(), index.totalBytes());
+    }
+
+    private boolean keepOrDiscard(Path path) {
+        if (path.getFileName().toString().startsWith(TEMP_PREFIX)) {
+            log.info("Removendo download incompleto: {}", path);
+            deleteQuietly(path);
+            return false;
+        }
+        return true;
+    }
+
+    private void register(Path path) {
+        StringJoiner key = new StringJoiner(StorageKeys.SEPARATOR);
+        root.relativize(path).forEach(name -> key.add(name.toString()));
+        try {
+            delete(index.put(key.toString(), path, Files.size(path)));
+        } catch (IOException e) {
+            log.warn("Ignorando arquivo inválido no cache: {}", path, e);
+        }
+    }
+
+    private static FileTime lastModified(Path path) {
+        try {
+            return Files.readAttributes(path, BasicFileAttributes.class).lastModifiedTime();
+        } catch (IOException _) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Erro ao remover arquivo do cache de armazenamento: {}", path, e);
+        }
+    }
+
+    private double hitRatio() {
+        double total = hits.count() + misses.count();
+        return total == 0 ? 0 : hits.count() / total;
+    }
+}
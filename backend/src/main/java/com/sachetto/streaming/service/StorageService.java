@@ -1,13 +1,33 @@
 package com.sachetto.streaming.service;
 
 import java.io.InputStream;
+import java.nio.file.Path;
 import java.util.UUID;
 
 import org.springframework.core.io.Resource;
 import org.springframework.web.multipart.MultipartFile;
 
 public interface StorageService {
-	String upload(UUID uploadId, Long index, InputStream file);
+
+	interface MultipartUpload extends AutoCloseable {
+		void part(InputStream content, long length);
+		void complete();
+		void abort();
+
+		@Override
+		default void close() {
+			abort();
+		}
+	}
+
+	String upload(UUID uploadId, Long index, InputStream file, String expectedHash);
 	String saveThumbnail(UUID uploadId, MultipartFile file);
-	Resource load(String path);
+	Resource load(String key);
+	InputStream open(String key);
+	void write(String key, InputStream content);
+	MultipartUpload multipart(String key);
+	boolean exists(String key);
+	void delete(String key);
+	void publish(String prefix);
+	Path localPath(String key);
 }
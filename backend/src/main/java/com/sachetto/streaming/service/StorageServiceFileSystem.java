@@ -2,32 +2,56 @@ package com.sachetto.streaming.service;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
 import java.util.UUID;
 import java.net.MalformedURLException;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.UrlResource;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.stereotype.Service;
 
 import com.sachetto.streaming.exception.ArquivoIOException;
+import com.sachetto.streaming.exception.ChecksumException;
+import com.sachetto.streaming.exception.ChunkMuitoGrandeException;
+import com.sachetto.streaming.util.ByteBufferResource;
+import com.sachetto.streaming.util.StorageKeys;
 
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
 @Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "streaming.config.storage.type", havingValue = "filesystem", matchIfMissing = true)
 public class StorageServiceFileSystem implements StorageService {
 
-    private static final Path RAIZ_UPLOADS = Paths.get("uploads");
+    protected static final String TEMP_PREFIX = ".tmp_";
+    private static final String ALGORITHM = "SHA-256";
+
+    protected final StorageMemoryCache storageMemoryCache;
+
+    @Value("${streaming.config.chunk.buffer_size:65536}")
+    private int bufferSize;
+
+    @Value("${streaming.config.chunk.max_bytes:104857600}")
+    private long maxChunkBytes;
 
     @Override
-    public String upload(UUID uploadId, Long index, InputStream file) {
+    public String upload(UUID uploadId, Long index, InputStream file, String expectedHash) {
+        Path temporario = null;
         try {
-            Path pastaUpload = RAIZ_UPLOADS.resolve(uploadId.toString());
+            Path pastaUpload = StorageKeys.local(uploadId);
             
             if (!Files.exists(pastaUpload)) {
                 log.debug("Criando diretório de upload: {}", pastaUpload);
@@ -36,39 +60,198 @@ public class StorageServiceFileSystem implements StorageService {
 
             String nomeArquivo = index + ".mp4";
             Path destino = pastaUpload.resolve(nomeArquivo);
+            temporario = Files.createTempFile(pastaUpload, TEMP_PREFIX + index + "_", ".mp4");
             
             log.info("Salvando arquivo: {} para uploadId: {}", nomeArquivo, uploadId);
-            Files.copy(file, destino, StandardCopyOption.REPLACE_EXISTING);
+            String hash = copiarComHash(file, temporario);
+
+            if (!hash.equalsIgnoreCase(expectedHash)) {
+                log.error("Checksum inválido para chunk {} do uploadId: {}", index, uploadId);
+                throw new ChecksumException();
+            }
+
+            Files.move(temporario, destino, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            temporario = null;
             log.debug("Arquivo salvo em: {}", destino.toAbsolutePath());
             
-            return destino.toAbsolutePath().toString();
+            return StorageKeys.chunk(uploadId, index);
         } catch (IOException e) {
             log.error("Erro ao salvar arquivo para uploadId: {}", uploadId, e);
             throw new ArquivoIOException();
+        } finally {
+            descartar(temporario);
+        }
+    }
+
+    private String copiarComHash(InputStream file, Path destino) throws IOException {
+        MessageDigest digest = newDigest();
+        byte[] buffer = new byte[bufferSize];
+        try (DigestInputStream is = new DigestInputStream(file, digest);
+             OutputStream os = Files.newOutputStream(destino, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            long total = 0;
+            int bytesRead;
+            while ((bytesRead = is.read(buffer)) != -1) {
+                total += bytesRead;
+                if (total > maxChunkBytes) {
+                    log.warn("Chunk interrompido após exceder {} bytes: {}", maxChunkBytes, destino);
+                    throw new ChunkMuitoGrandeException(maxChunkBytes);
+                }
+                os.write(buffer, 0, bytesRead);
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance(ALGORITHM);
+        } catch (NoSuchAlgorithmException _) {
+            throw new ChecksumException();
+        }
+    }
+
+    protected Path memorySource(String key) {
+        return localPath(key);
+    }
+
+    protected void descartar(Path temporario) {
+        if (temporario == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(temporario);
+        } catch (IOException e) {
+            log.warn("Não foi possível remover arquivo temporário: {}", temporario, e);
         }
     }
 
     @Override
-    public Resource load(String path) {
+    public Resource load(String key) {
+        String normalized = StorageKeys.normalize(key);
+        ByteBufferResource cached = storageMemoryCache.get(normalized, memorySource(normalized));
+        if (cached != null) {
+            return cached;
+        }
         try {
-            Path filePath = Paths.get(path);
+            Path filePath = localPath(normalized);
             Resource resource = new UrlResource(filePath.toUri());
             
             if (resource.exists() || resource.isReadable()) {
+                storageMemoryCache.offer(normalized, filePath);
                 return resource;
             } else {
                 throw new ArquivoIOException();
             }
         } catch (MalformedURLException e) {
-            log.error("Erro ao carregar arquivo: {}", path, e);
+            log.error("Erro ao carregar arquivo: {}", key, e);
+            throw new ArquivoIOException();
+        }
+    }
+
+    @Override
+    public InputStream open(String key) {
+        try {
+            return Files.newInputStream(localPath(key));
+        } catch (IOException e) {
+            log.error("Erro ao abrir arquivo: {}", key, e);
             throw new ArquivoIOException();
         }
     }
 
+    @Override
+    public void write(String key, InputStream content) {
+        Path destino = localPath(key);
+        Path temporario = null;
+        try {
+            Files.createDirectories(destino.getParent());
+            temporario = Files.createTempFile(destino.getParent(), TEMP_PREFIX, "_" + destino.getFileName());
+            Files.copy(content, temporario, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(temporario, destino, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            temporario = null;
+        } catch (IOException e) {
+            log.error("Erro ao gravar arquivo: {}", key, e);
+            throw new ArquivoIOException();
+        } finally {
+            descartar(temporario);
+            storageMemoryCache.invalidate(StorageKeys.normalize(key));
+        }
+    }
+
+    @Override
+    public MultipartUpload multipart(String key) {
+        Path destino = localPath(key);
+        try {
+            Files.createDirectories(destino.getParent());
+            Path temporario = Files.createTempFile(destino.getParent(), TEMP_PREFIX, "_" + destino.getFileName());
+            return new MultipartUpload() {
+                private boolean concluido;
+
+                @Override
+                public void part(InputStream content, long length) {
+                    try (OutputStream os = Files.newOutputStream(temporario, StandardOpenOption.APPEND)) {
+                        content.transferTo(os);
+                    } catch (IOException e) {
+                        log.error("Erro ao gravar parte do upload multipart: {}", key, e);
+                        throw new ArquivoIOException();
+                    }
+                }
+
+                @Override
+                public void complete() {
+                    try {
+                        Files.move(temporario, destino, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                        concluido = true;
+                        storageMemoryCache.invalidate(StorageKeys.normalize(key));
+                    } catch (IOException e) {
+                        log.error("Erro ao concluir upload multipart: {}", key, e);
+                        throw new ArquivoIOException();
+                    }
+                }
+
+                @Override
+                public void abort() {
+                    if (!concluido) {
+                        descartar(temporario);
+                    }
+                }
+            };
+        } catch (IOException e) {
+            log.error("Erro ao iniciar upload multipart: {}", key, e);
+            throw new ArquivoIOException();
+        }
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return Files.exists(localPath(key));
+    }
+
+    @Override
+    public void delete(String key) {
+        try {
+            Files.deleteIfExists(localPath(key));
+        } catch (IOException e) {
+            log.error("Erro ao remover arquivo: {}", key, e);
+            throw new ArquivoIOException();
+        } finally {
+            storageMemoryCache.invalidate(StorageKeys.normalize(key));
+        }
+    }
+
+    @Override
+    public void publish(String prefix) {
+        log.debug("Armazenamento local, nada a publicar para {}", prefix);
+    }
+
+    @Override
+    public Path localPath(String key) {
+        return StorageKeys.local(StorageKeys.normalize(key));
+    }
+
     @Override
     public String saveThumbnail(UUID uploadId, MultipartFile file) {
         try {
-            Path pastaUpload = RAIZ_UPLOADS.resolve(uploadId.toString());
+            Path pastaUpload = StorageKeys.local(uploadId);
             
             if (!Files.exists(pastaUpload)) {
                 log.debug("Criando diretório de upload: {}", pastaUpload);
@@ -87,7 +270,9 @@ public class StorageServiceFileSystem implements StorageService {
             Files.copy(file.getInputStream(), destino, StandardCopyOption.REPLACE_EXISTING);
             log.debug("Thumbnail salvo em: {}", destino.toAbsolutePath());
             
-            return destino.toAbsolutePath().toString();
+            String key = StorageKeys.of(uploadId, nomeArquivo);
+            storageMemoryCache.invalidate(key);
+            return key;
         } catch (IOException e) {
             log.error("Erro ao salvar thumbnail para uploadId: {}", uploadId, e);
             throw new ArquivoIOException();
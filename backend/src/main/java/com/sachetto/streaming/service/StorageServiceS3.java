@@ -0,0 +1,272 @@
+package com.sachetto.streaming.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import com.sachetto.streaming.exception.ArquivoIOException;
+import com.sachetto.streaming.util.StorageKeys;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.core.sync.ResponseTransformer;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3ClientBuilder;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "streaming.config.storage.type", havingValue = "s3")
+public class StorageServiceS3 extends StorageServiceFileSystem {
+
+    private static final int MIN_PART_SIZE = 5 * 1024 * 1024;
+    private static final int NOT_FOUND = 404;
+    private static final Set<String> LOCAL_ONLY_DIRS = Set.of("watermarked", "exports");
+    private static final String MASTER_PLAYLIST_NAME = "master.m3u8";
+    private static final Pattern CHUNK_NAME = Pattern.compile("\\d+\\.mp4");
+
+    private final StorageReadCache storageReadCache;
+
+    private S3Client s3;
+
+    @Value("${streaming.config.storage.s3.endpoint:}")
+    private String endpoint;
+
+    @Value("${streaming.config.storage.s3.region:us-east-1}")
+    private String region;
+
+    @Value("${streaming.config.storage.s3.bucket:streaming}")
+    private String bucket;
+
+    @Value("${streaming.config.storage.s3.access_key:}")
+    private String accessKey;
+
+    @Value("${streaming.config.storage.s3.secret_key:}")
+    private String secretKey;
+
+    @Value("${streaming.config.storage.s3.path_style:true}")
+    private boolean pathStyle;
+
+    @Value("${streaming.config.storage.s3.part_size:8388608}")
+    private int partSize;
+
+    public StorageServiceS3(StorageMemoryCache storageMemoryCache, StorageReadCache storageReadCache) {
+        super(storageMemoryCache);
+        this.storageReadCache = storageReadCache;
+    }
+
+    @PostConstruct
+    void init() {
+        partSize = Math.max(partSize, MIN_PART_SIZE);
+        S3ClientBuilder builder = S3Client.builder()
+                .region(Region.of(region))
+                .forcePathStyle(pathStyle);
+        if (!endpoint.isBlank()) {
+            builder.endpointOverride(URI.create(endpoint));
+        }
+        if (!accessKey.isBlank()) {
+            builder.credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create(accessKey, secretKey)));
+        }
+        s3 = builder.build();
+        log.info("Armazenamento S3 configurado: bucket={}, endpoint={}", bucket, endpoint.isBlank() ? "aws" : endpoint);
+    }
+
+    @PreDestroy
+    void stop() {
+        s3.close();
+    }
+
+    @Override
+    public String saveThumbnail(UUID uploadId, MultipartFile file) {
+        String key = super.saveThumbnail(uploadId, file);
+        putFile(key, StorageKeys.local(key));
+        return key;
+    }
+
+    @Override
+    public InputStream open(String key) {
+        try {
+            return s3.getObject(request -> request.bucket(bucket).key(StorageKeys.normalize(key)));
+        } catch (S3Exception e) {
+            log.error("Erro ao abrir objeto: {}", key, e);
+            throw new ArquivoIOException();
+        }
+    }
+
+    @Override
+    public void write(String key, InputStream content) {
+        try {
+            byte[] first = content.readNBytes(partSize);
+            if (first.length < partSize) {
+                s3.putObject(request -> request.bucket(bucket).key(key), RequestBody.fromBytes(first));
+                return;
+            }
+            try (MultipartUpload upload = multipart(key)) {
+                byte[] part = first;
+                while (part.length > 0) {
+                    upload.part(new ByteArrayInputStream(part), part.length);
+                    part = content.readNBytes(partSize);
+                }
+                upload.complete();
+            }
+        } catch (IOException | S3Exception e) {
+            log.error("Erro ao gravar objeto: {}", key, e);
+            throw new ArquivoIOException();
+        } finally {
+            storageReadCache.invalidate(key);
+            storageMemoryCache.invalidate(key);
+        }
+    }
+
+    @Override
+    public MultipartUpload multipart(String key) {
+        String uploadId = s3.createMultipartUpload(request -> request.bucket(bucket).key(key)).uploadId();
+        return new MultipartUpload() {
+            private final List<CompletedPart> parts = new ArrayList<>();
+            private boolean concluido;
+
+            @Override
+            public void part(InputStream content, long length) {
+                int partNumber = parts.size() + 1;
+                String etag = s3.uploadPart(request -> request.bucket(bucket).key(key).uploadId(uploadId).partNumber(partNumber),
+                        RequestBody.fromInputStream(content, length)).eTag();
+                parts.add(CompletedPart.builder().partNumber(partNumber).eTag(etag).build());
+            }
+
+            @Override
+            public void complete() {
+                s3.completeMultipartUpload(request -> request.bucket(bucket).key(key).uploadId(uploadId)
+                        .multipartUpload(upload -> upload.parts(parts)));
+                concluido = true;
+                storageReadCache.invalidate(key);
+                storageMemoryCache.invalidate(key);
+            }
+
+            @Override
+            public void abort() {
+                if (concluido) {
+                    return;
+                }
+                try {
+                    s3.abortMultipartUpload(request -> request.bucket(bucket).key(key).uploadId(uploadId));
+                } catch (S3Exception e) {
+                    log.warn("Não foi possível abortar upload multipart de {}", key, e);
+                }
+            }
+        };
+    }
+
+    @Override
+    public boolean exists(String key) {
+        try {
+            s3.headObject(request -> request.bucket(bucket).key(StorageKeys.normalize(key)));
+            return true;
+        } catch (S3Exception e) {
+            if (e.statusCode() == NOT_FOUND) {
+                return false;
+            }
+            log.error("Erro ao consultar objeto: {}", key, e);
+            throw new ArquivoIOException();
+        }
+    }
+
+    @Override
+    public void delete(String key) {
+        String normalized = StorageKeys.normalize(key);
+        try {
+            s3.deleteObject(request -> request.bucket(bucket).key(normalized));
+        } catch (S3Exception e) {
+            log.error("Erro ao remover objeto: {}", key, e);
+            throw new ArquivoIOException();
+        } finally {
+            storageReadCache.invalidate(normalized);
+            storageMemoryCache.invalidate(normalized);
+        }
+    }
+
+    @Override
+    public void publish(String prefix) {
+        Path dir = StorageKeys.local(prefix);
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(dir)) {
+            files = walk.filter(Files::isRegularFile)
+                    .filter(path -> isPublishable(dir, path))
+                    .sorted(Comparator.comparing(StorageServiceS3::publishOrder))
+                    .toList();
+        } catch (IOException e) {
+            log.error("Erro ao listar arquivos para publicação: {}", dir, e);
+            throw new ArquivoIOException();
+        }
+
+        log.info("Publicando {} arquivos de {} no bucket {}", files.size(), prefix, bucket);
+        files.forEach(path -> putFile(StorageKeys.keyOf(path), path));
+    }
+
+    @Override
+    public Path localPath(String key) {
+        String normalized = StorageKeys.normalize(key);
+        return storageReadCache.get(normalized, target -> {
+            try {
+                s3.getObject(request -> request.bucket(bucket).key(normalized), ResponseTransformer.toFile(target));
+            } catch (S3Exception e) {
+                log.error("Erro ao baixar objeto: {}", normalized, e);
+                throw new ArquivoIOException();
+            }
+        });
+    }
+
+    @Override
+    protected Path memorySource(String key) {
+        return null;
+    }
+
+    private void putFile(String key, Path path) {
+        try (InputStream is = Files.newInputStream(path)) {
+            write(key, is);
+        } catch (IOException e) {
+            log.error("Erro ao ler arquivo para publicação: {}", path, e);
+            throw new ArquivoIOException();
+        }
+    }
+
+    private static boolean isPublishable(Path dir, Path path) {
+        Path relative = dir.relativize(path);
+        String name = path.getFileName().toString();
+        if (name.startsWith(TEMP_PREFIX) || LOCAL_ONLY_DIRS.contains(relative.getName(0).toString())) {
+            return false;
+        }
+        return relative.getNameCount() > 1 || !CHUNK_NAME.matcher(name).matches();
+    }
+
+    private static int publishOrder(Path path) {
+        String name = path.getFileName().toString();
+        if (name.startsWith(".")) {
+            return 3;
+        }
+        if (name.equals(MASTER_PLAYLIST_NAME)) {
+            return 2;
+        }
+        return name.endsWith(".m3u8") ? 1 : 0;
+    }
+}
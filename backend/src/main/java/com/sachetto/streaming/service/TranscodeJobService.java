@@ -0,0 +1,279 @@
+package com.sachetto.streaming.service;
+
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.DoubleConsumer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.sachetto.streaming.config.RenditionLadder.Rendition;
+import com.sachetto.streaming.entity.File;
+import com.sachetto.streaming.entity.TranscodeJob;
+import com.sachetto.streaming.entity.TranscodeJobStatus;
+import com.sachetto.streaming.exception.ChecksumException;
+import com.sachetto.streaming.repository.FileRepository;
+import com.sachetto.streaming.repository.TranscodeJobRepository;
+import com.sachetto.streaming.util.StorageKeys;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TranscodeJobService {
+
+    private static final int CHECKSUM_PROGRESS = 10;
+    private static final int MAX_PROGRESS_RUNNING = 99;
+    private static final int MAX_ERROR_LENGTH = 255;
+    private static final String MODE_INCREMENTAL = "incremental";
+    private static final String MODE_PARALLEL = "parallel";
+    private static final String MODE_SINGLE = "single";
+    private static final Set<TranscodeJobStatus> ACTIVE_STATUS = Set.of(
+            TranscodeJobStatus.PENDING, TranscodeJobStatus.RUNNING, TranscodeJobStatus.SUCCESS);
+
+    private final TranscodeJobRepository transcodeJobRepository;
+    private final FileRepository fileRepository;
+    private final ChunkService chunkService;
+    private final FileDigestService fileDigestService;
+    private final FFmpegService ffmpegService;
+    private final HlsPackagingService hlsPackagingService;
+    private final ParallelTranscodeService parallelTranscodeService;
+    private final PlaylistManifestService playlistManifestService;
+    private final ForensicVariantService forensicVariantService;
+    private final StorageService storageService;
+    private final MeterRegistry meterRegistry;
+
+    private final Set<UUID> inFlight = ConcurrentHashMap.newKeySet();
+    private ThreadPoolExecutor executor;
+
+    @Value("${streaming.config.transcode.workers:0}")
+    private int workers;
+
+    @Value("${streaming.config.transcode.queue_capacity:32}")
+    private int queueCapacity;
+
+    @Value("${streaming.config.transcode.mode:parallel}")
+    private String transcodeMode;
+
+    @Value("${streaming.config.node.id:${HOSTNAME:local}}")
+    private String nodeId;
+
+    @Value("${streaming.config.chunk.tempo_em_segundos}")
+    private long tempoChunkEmSegundos;
+
+    @PostConstruct
+    void start() {
+        int poolSize = workers > 0 ? workers : Runtime.getRuntime().availableProcessors();
+        log.info("Iniciando pool de transcodificação com {} workers e fila de {}", poolSize, queueCapacity);
+        executor = new ThreadPoolExecutor(
+                poolSize, poolSize,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                Thread.ofPlatform().name("transcode-", 0).factory(),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdownNow();
+    }
+
+    @Transactional
+    public TranscodeJob enqueue(File file, Long totalChunks) {
+        TranscodeJob existing = transcodeJobRepository.findFirstByFileIdAndStatusIn(file.getId(), ACTIVE_STATUS).orElse(null);
+        if (existing != null) {
+            log.info("Upload ID: {} já possui job de transcodificação {} ({})", file.getId(), existing.getId(), existing.getStatus());
+            return existing;
+        }
+
+        TranscodeJob job = transcodeJobRepository.save(
+            TranscodeJob.builder()
+                .file(file)
+                .totalChunks(totalChunks)
+                .status(TranscodeJobStatus.PENDING)
+                .nodeId(nodeId)
+                .progress(0)
+                .build());
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    submit(job.getId());
+                }
+            });
+        } else {
+            submit(job.getId());
+        }
+        return job;
+    }
+
+    public boolean hasActiveJob(UUID fileId) {
+        return transcodeJobRepository.existsByFileIdAndStatusIn(fileId, ACTIVE_STATUS);
+    }
+
+    public TranscodeJob findLatest(UUID fileId) {
+        return transcodeJobRepository.findFirstByFileIdOrderByCreatedAtDesc(fileId).orElse(null);
+    }
+
+    // Os chunks ficam no disco local do nó que recebeu o upload: cada nó só recupera e executa os próprios jobs
+    @EventListener(ApplicationReadyEvent.class)
+    public void recover() {
+        int recovered = transcodeJobRepository.updateAllStatusByNodeId(TranscodeJobStatus.RUNNING, TranscodeJobStatus.PENDING, nodeId);
+        if (recovered > 0) {
+            log.warn("{} jobs de transcodificação interrompidos voltaram para a fila", recovered);
+        }
+        dispatchPending();
+    }
+
+    @Scheduled(fixedDelayString = "${streaming.config.transcode.poll_ms:5000}")
+    public void dispatchPending() {
+        List<TranscodeJob> pending = transcodeJobRepository.findTop50ByStatusAndNodeIdOrderByCreatedAtAsc(TranscodeJobStatus.PENDING, nodeId);
+        for (TranscodeJob job : pending) {
+            if (!submit(job.getId())) {
+                break;
+            }
+        }
+    }
+
+    private boolean submit(UUID jobId) {
+        if (!inFlight.add(jobId)) {
+            return true;
+        }
+
+        try {
+            executor.execute(() -> run(jobId));
+            return true;
+        } catch (RejectedExecutionException _) {
+            inFlight.remove(jobId);
+            log.debug("Fila de transcodificação cheia, job {} permanece pendente", jobId);
+            return false;
+        }
+    }
+
+    private void run(UUID jobId) {
+        try {
+            if (transcodeJobRepository.updateStatus(jobId, TranscodeJobStatus.PENDING, TranscodeJobStatus.RUNNING) == 0) {
+                log.debug("Job {} já foi assumido por outro worker", jobId);
+                return;
+            }
+            process(transcodeJobRepository.findById(jobId).orElseThrow());
+        } finally {
+            inFlight.remove(jobId);
+        }
+    }
+
+    private void process(TranscodeJob job) {
+        UUID fileId = job.getFile().getId();
+        log.info("Executando job de transcodificação {} para uploadId={}", job.getId(), fileId);
+
+        try {
+            File file = fileRepository.findById(fileId).orElseThrow();
+            List<String> chunksPath = chunkService.getChunkPaths(fileId, job.getTotalChunks());
+
+            validarCheckSumPorFile(file, job.getTotalChunks());
+            transcodeJobRepository.updateProgress(job.getId(), CHECKSUM_PROGRESS);
+
+            double duracaoEstimada = (double) chunksPath.size() * tempoChunkEmSegundos;
+            AtomicInteger lastProgress = new AtomicInteger(CHECKSUM_PROGRESS);
+            DoubleConsumer onProgress = seconds -> {
+                int progress = CHECKSUM_PROGRESS + (int) ((100 - CHECKSUM_PROGRESS) * seconds / duracaoEstimada);
+                progress = Math.min(progress, MAX_PROGRESS_RUNNING);
+                if (progress > lastProgress.get()) {
+                    lastProgress.set(progress);
+                    transcodeJobRepository.updateProgress(job.getId(), progress);
+                }
+            };
+
+            long inicio = System.nanoTime();
+            List<Rendition> renditions = ffmpegService.renditionsFor(Paths.get(chunksPath.getFirst()));
+            String modo;
+            if (hlsPackagingService.finish(fileId, job.getTotalChunks(), onProgress)) {
+                modo = MODE_INCREMENTAL;
+                playlistManifestService.publishAsVod(fileId, renditions);
+                playlistManifestService.publishMaster(fileId, renditions);
+                ffmpegService.deleteChunks(chunksPath);
+            } else if (MODE_PARALLEL.equalsIgnoreCase(transcodeMode)) {
+                modo = MODE_PARALLEL;
+                log.info("Empacotamento incremental indisponível para uploadId={}, transcodificando chunks em paralelo", fileId);
+                parallelTranscodeService.formatHLS(chunksPath, fileId, renditions, onProgress);
+            } else {
+                modo = MODE_SINGLE;
+                log.info("Empacotamento incremental indisponível para uploadId={}, transcodificando arquivo completo", fileId);
+                ffmpegService.formatHLS(chunksPath, fileId, renditions, onProgress);
+                playlistManifestService.publishMaster(fileId, renditions);
+                playlistManifestService.evict(fileId);
+            }
+            Timer.builder("streaming.transcode.duration").tag("mode", modo).register(meterRegistry)
+                    .record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+
+            storageService.publish(StorageKeys.of(fileId));
+
+            file.setValid(true);
+            fileRepository.save(file);
+            chunkService.cleanup(fileId);
+            fileDigestService.cleanup(fileId);
+
+            transcodeJobRepository.updateProgress(job.getId(), 100);
+            if (transcodeJobRepository.finish(job.getId(), TranscodeJobStatus.SUCCESS, null) == 0) {
+                log.warn("Job {} não estava mais em execução ao concluir, status preservado", job.getId());
+            }
+            log.info("Job {} concluído. Upload ID: {} validado.", job.getId(), fileId);
+
+            if (forensicVariantService.isEnabled()) {
+                forensicVariantService.generateAsync(fileId);
+            }
+        } catch (RuntimeException | Error e) {
+            if (executor.isShutdown()) {
+                log.warn("Job {} interrompido pelo desligamento da aplicação", job.getId());
+                return;
+            }
+            log.error("Falha no job de transcodificação {} para uploadId={}", job.getId(), fileId, e);
+            try {
+                hlsPackagingService.abort(fileId);
+                chunkService.touch(fileId);
+            } finally {
+                transcodeJobRepository.finish(job.getId(), TranscodeJobStatus.FAILED,
+                        abreviar(Objects.toString(e.getMessage(), e.getClass().getSimpleName())));
+            }
+            if (e instanceof Error error) {
+                throw error;
+            }
+        }
+    }
+
+    private void validarCheckSumPorFile(File file, Long totalChunks) {
+        if (!fileDigestService.finish(file.getId(), totalChunks).equalsIgnoreCase(file.getHash())) {
+            log.error("Checksum inválido para o arquivo completo ID: {}", file.getId());
+            throw new ChecksumException();
+        }
+    }
+
+    private String abreviar(String message) {
+        if (message == null || message.length() <= MAX_ERROR_LENGTH) {
+            return message;
+        }
+        return message.substring(0, MAX_ERROR_LENGTH);
+    }
+}
@@ -1,7 +1,10 @@
 package com.sachetto.streaming.service;
 
+import java.io.InputStream;
 import java.util.List;
+import java.util.UUID;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import com.sachetto.streaming.dto.ChunkRequestDto;
@@ -10,11 +13,16 @@ import com.sachetto.streaming.dto.CompleteRequestDto;
 import com.sachetto.streaming.dto.CompleteResponseDto;
 import com.sachetto.streaming.dto.InitRequestDto;
 import com.sachetto.streaming.dto.InitResponseDto;
+import com.sachetto.streaming.dto.ManifestResponseDto;
+import com.sachetto.streaming.dto.UploadStatusResponseDto;
 import com.sachetto.streaming.entity.File;
+import com.sachetto.streaming.entity.TranscodeJob;
 import com.sachetto.streaming.exception.ArquivoIOException;
 import com.sachetto.streaming.exception.ChecksumException;
+import com.sachetto.streaming.exception.ChunkInvalidoException;
+import com.sachetto.streaming.exception.ChunkMuitoGrandeException;
+import com.sachetto.streaming.exception.UploadEmProcessamentoException;
 import com.sachetto.streaming.repository.FileRepository;
-import com.sachetto.streaming.util.CheckSumUtil;
 
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
@@ -27,8 +35,13 @@ public class UploadService {
 	
 	private final FileRepository fileRepository; 
 	private final ChunkService chunkService;
-	private final FFmpegService ffmpegService;
+	private final FileDigestService fileDigestService;
+	private final HlsPackagingService hlsPackagingService;
+	private final TranscodeJobService transcodeJobService;
 	private final StorageService storageService;
+	
+	@Value("${streaming.config.chunk.max_bytes:104857600}")
+	private long maxChunkBytes;
 
 	@Transactional
 	public InitResponseDto init(InitRequestDto initRequestDto) {
@@ -54,21 +67,47 @@ public class UploadService {
 
 	@Transactional
 	public ChunkResponseDto chunk(ChunkRequestDto chunkRequestDto) {
-		log.info("Recebendo chunk {} para upload ID: {}", chunkRequestDto.index(), chunkRequestDto.uploadId());
-	
-		validarCheckSumPorChunk(chunkRequestDto);
-		
 		try {
-			storageService.upload(chunkRequestDto.uploadId(), chunkRequestDto.index(), chunkRequestDto.file().getInputStream());
+			return chunk(chunkRequestDto.uploadId(), chunkRequestDto.index(), chunkRequestDto.chunkHash(),
+					chunkRequestDto.file().getSize(), chunkRequestDto.file().getInputStream());
 		} catch (java.io.IOException e) {
 			log.error("Erro ao processar arquivo do chunk", e);
 			throw new ArquivoIOException();
 		}
+	}
+	
+	public ChunkResponseDto chunk(UUID uploadId, Long index, String chunkHash, long contentLength, InputStream body) {
+		log.info("Recebendo chunk {} para upload ID: {}", index, uploadId);
 		
-		chunkService.registerChunk(chunkRequestDto.uploadId(), chunkRequestDto.index());
+		if (contentLength > maxChunkBytes) {
+			log.error("Chunk {} com {} bytes excede o limite de {} para upload ID: {}", index, contentLength, maxChunkBytes, uploadId);
+			throw new ChunkMuitoGrandeException(maxChunkBytes);
+		}
+		
+		if (chunkHash == null || chunkHash.isBlank()) {
+			log.error("Checksum ausente para chunk {}", index);
+			throw new ChecksumException();
+		}
+		
+		Long totalChunks = chunkService.getTotalChunks(uploadId);
+		if (index == null || index < 1 || index > totalChunks) {
+			log.error("Chunk {} fora do intervalo 1..{} para upload ID: {}", index, totalChunks, uploadId);
+			throw new ChunkInvalidoException();
+		}
+		
+		if (transcodeJobService.hasActiveJob(uploadId)) {
+			log.warn("Chunk {} recusado: upload ID {} já possui job de transcodificação", index, uploadId);
+			throw new UploadEmProcessamentoException();
+		}
+		
+		storageService.upload(uploadId, index, body, chunkHash);
+		
+		chunkService.registerChunk(uploadId, index);
+		fileDigestService.advanceAsync(uploadId);
+		hlsPackagingService.onChunkStored(uploadId);
 			
-		log.debug("Chunk {} salvo com sucesso.", chunkRequestDto.index());
-		return new ChunkResponseDto(chunkRequestDto.uploadId());
+		log.debug("Chunk {} salvo com sucesso.", index);
+		return new ChunkResponseDto(uploadId);
 	}
 	
 	@Transactional
@@ -76,30 +115,33 @@ public class UploadService {
 		log.info("Finalizando upload ID: {}", completeRequestDto.uploadId());
 		File file = fileRepository.findById(completeRequestDto.uploadId()).orElseThrow();
 		List<String> chunksPath = chunkService.validateAndGetChunkPaths(completeRequestDto.uploadId());
+		chunkService.persist(completeRequestDto.uploadId());
 
-		validarCheckSumPorFile(chunksPath, file);
-		ffmpegService.formatHLS(chunksPath, file.getId());
-		
-		file.setValid(true);
-		file = fileRepository.save(file);
+		TranscodeJob job = transcodeJobService.enqueue(file, (long) chunksPath.size());
 		
-		chunkService.cleanup(file.getId());
-		
-		log.info("Upload ID: {} finalizado e validado.", file.getId());
-		return new CompleteResponseDto(file.getId(), chunksPath);
+		log.info("Upload ID: {} enfileirado para transcodificação no job {}.", file.getId(), job.getId());
+		return new CompleteResponseDto(file.getId(), job.getId(), job.getStatus());
 	}
 	
-	private void validarCheckSumPorChunk(ChunkRequestDto chunkRequestDto) {
-		if (!CheckSumUtil.isValid(chunkRequestDto.file(), chunkRequestDto.chunkHash())) {
-			log.error("Checksum inválido para chunk {}", chunkRequestDto.index());
-			throw new ChecksumException();
-		}
+	public ManifestResponseDto manifest(UUID uploadId) {
+		File file = fileRepository.findById(uploadId).orElseThrow();
+		return new ManifestResponseDto(
+			file.getId(),
+			file.getName(),
+			file.getSize(),
+			file.getHash(),
+			chunkService.getTotalChunks(uploadId),
+			chunkService.countChunks(uploadId),
+			chunkService.getChunkRanges(uploadId));
 	}
 	
-	private void validarCheckSumPorFile(List<String> chunksPath , File file) {
-		if (!CheckSumUtil.isValidFullFile(chunksPath, file.getHash())) {
-			log.error("Checksum inválido para o arquivo completo ID: {}", file.getId());
-			throw new ChecksumException();
+	public UploadStatusResponseDto status(UUID uploadId) {
+		File file = fileRepository.findById(uploadId).orElseThrow();
+		TranscodeJob job = transcodeJobService.findLatest(uploadId);
+		
+		if (job == null) {
+			return new UploadStatusResponseDto(file.getId(), null, null, 0, file.getValid(), null);
 		}
+		return new UploadStatusResponseDto(file.getId(), job.getId(), job.getStatus(), job.getProgress(), file.getValid(), job.getError());
 	}
 }
@@ -0,0 +1,348 @@
+package com.sachetto.streaming.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.IntSupplier;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.sachetto.streaming.entity.File;
+import com.sachetto.streaming.entity.TranscodeJobStatus;
+import com.sachetto.streaming.exception.ArquivoIOException;
+import com.sachetto.streaming.repository.FileRepository;
+import com.sachetto.streaming.repository.TranscodeJobRepository;
+import com.sachetto.streaming.repository.WatermarkRepository;
+import com.sachetto.streaming.util.StorageKeys;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class UploadSweeperService {
+
+    private static final String METRIC_PREFIX = "streaming.sweeper";
+    private static final String EXPORTS_DIR = "exports";
+    private static final String TEMP_PREFIX = ".tmp_";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final String FFMPEG_LIST_NAME = "lista.txt";
+    private static final String KIND_UPLOAD = "upload";
+    private static final String KIND_TEMP = "temp";
+    private static final String KIND_EXPORT = "export";
+    private static final String KIND_RENDER = "render";
+    private static final String KIND_OVERLAY = "overlay";
+    private static final Set<TranscodeJobStatus> ACTIVE_STATUS = Set.of(TranscodeJobStatus.PENDING, TranscodeJobStatus.RUNNING);
+
+    private final FileRepository fileRepository;
+    private final TranscodeJobRepository transcodeJobRepository;
+    private final WatermarkRepository watermarkRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final ChunkService chunkService;
+    private final FileDigestService fileDigestService;
+    private final HlsPackagingService hlsPackagingService;
+    private final StorageService storageService;
+    private final WatermarkSegmentCache watermarkSegmentCache;
+    private final WatermarkOverlayService watermarkOverlayService;
+    private final MeterRegistry meterRegistry;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private ExecutorService executor;
+    private TransactionTemplate transactionTemplate;
+    private Counter reapedUploads;
+    private long nextDeleteAt;
+
+    @Value("${streaming.config.sweeper.enabled:true}")
+    private boolean enabled;
+
+    @Value("${streaming.config.sweeper.batch_size:100}")
+    private int batchSize;
+
+    @Value("${streaming.config.sweeper.deletes_per_second:200}")
+    private int deletesPerSecond;
+
+    @Value("${streaming.config.upload.ttl_ms:86400000}")
+    private long uploadTtlMillis;
+
+    @Value("${streaming.config.sweeper.temp_ttl_ms:3600000}")
+    private long tempTtlMillis;
+
+    @Value("${streaming.config.sweeper.render_idle_ms:86400000}")
+    private long renderIdleMillis;
+
+    @Value("${streaming.config.sweeper.export_ttl_ms:604800000}")
+    private long exportTtlMillis;
+
+    @PostConstruct
+    void init() {
+        executor = Executors.newSingleThreadExecutor(Thread.ofPlatform().name("sweeper").daemon(true).factory());
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        reapedUploads = Counter.builder(METRIC_PREFIX + ".uploads").register(meterRegistry);
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdownNow();
+    }
+
+    @Scheduled(initialDelayString = "${streaming.config.sweeper.initial_delay_ms:300000}",
+            fixedDelayString = "${streaming.config.sweeper.interval_ms:3600000}")
+    public void schedule() {
+        if (!enabled || !running.compareAndSet(false, true)) {
+            return;
+        }
+        executor.execute(() -> {
+            try {
+                sweep();
+            } catch (RuntimeException e) {
+                log.error("Falha na varredura de arquivos órfãos", e);
+            } finally {
+                running.set(false);
+            }
+        });
+    }
+
+    private void sweep() {
+        long inicio = System.nanoTime();
+        int uploads = phase("uploads abandonados", this::sweepAbandonedUploads);
+        int diretorios = phase("diretórios órfãos", this::sweepOrphanDirectories);
+        phase("arquivos temporários", () -> {
+            sweepLocalFiles();
+            return 0;
+        });
+        phase("renders de marca d'água", () -> {
+            watermarkSegmentCache.evictIdle(renderIdleMillis).forEach(path -> delete(path, KIND_RENDER));
+            watermarkOverlayService.staleFiles(tempTtlMillis).forEach(path -> delete(path, KIND_OVERLAY));
+            return 0;
+        });
+        log.info("Varredura concluída em {} ms: {} uploads abandonados, {} diretórios órfãos",
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio), uploads, diretorios);
+    }
+
+    private int phase(String nome, IntSupplier etapa) {
+        try {
+            return etapa.getAsInt();
+        } catch (RuntimeException e) {
+            log.error("Falha na varredura de {}", nome, e);
+            return 0;
+        }
+    }
+
+    private int sweepAbandonedUploads() {
+        LocalDateTime limite = LocalDateTime.now().minus(Duration.ofMillis(uploadTtlMillis));
+        ScrollPosition position = ScrollPosition.keyset();
+        Window<File> window;
+        int total = 0;
+        do {
+            window = fileRepository.findByValidFalseAndCreatedAtBeforeOrderByIdAsc(limite, position, Limit.of(batchSize));
+            if (window.isEmpty()) {
+                break;
+            }
+            List<File> removidos = deleteRows(window.getContent().stream().filter(this::isAbandoned).toList());
+            removidos.forEach(this::reapStorage);
+            reapedUploads.increment(removidos.size());
+            total += removidos.size();
+            position = window.positionAt(window.size() - 1);
+        } while (window.hasNext() && !Thread.currentThread().isInterrupted());
+        return total;
+    }
+
+    private boolean isAbandoned(File file) {
+        try {
+            return !transcodeJobRepository.existsByFileIdAndStatusIn(file.getId(), ACTIVE_STATUS)
+                    && chunkService.isAbandoned(file.getId());
+        } catch (RuntimeException e) {
+            log.warn("Não foi possível verificar se o upload {} foi abandonado", file.getId(), e);
+            return false;
+        }
+    }
+
+    private List<File> deleteRows(List<File> files) {
+        if (files.isEmpty()) {
+            return files;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(_ -> deleteRowsInTransaction(files));
+            return files;
+        } catch (RuntimeException e) {
+            log.warn("Falha ao remover lote de {} uploads abandonados, removendo individualmente", files.size(), e);
+        }
+
+        List<File> removidos = new ArrayList<>();
+        for (File file : files) {
+            try {
+                transactionTemplate.executeWithoutResult(_ -> deleteRowsInTransaction(List.of(file)));
+                removidos.add(file);
+            } catch (RuntimeException e) {
+                log.warn("Não foi possível remover registros do upload abandonado {}", file.getId(), e);
+            }
+        }
+        return removidos;
+    }
+
+    private void deleteRowsInTransaction(List<File> files) {
+        List<UUID> ids = files.stream().map(File::getId).toList();
+        watermarkRepository.deleteByFileIdIn(ids);
+        transcodeJobRepository.deleteByFileIdIn(ids);
+        fileRepository.deleteAll(files);
+    }
+
+    private void reapStorage(File file) {
+        UUID uploadId = file.getId();
+        try {
+            hlsPackagingService.abort(uploadId);
+            if (file.getThumbnail() != null) {
+                storageService.delete(file.getThumbnail());
+            }
+            deleteTree(StorageKeys.local(uploadId), KIND_UPLOAD);
+            chunkService.cleanup(uploadId);
+            fileDigestService.cleanup(uploadId);
+            log.info("Upload abandonado removido: {} ({})", uploadId, file.getName());
+        } catch (RuntimeException e) {
+            log.warn("Registro do upload abandonado {} removido, arquivos restantes serão varridos como órfãos", uploadId, e);
+        }
+    }
+
+    private int sweepOrphanDirectories() {
+        Path root = StorageKeys.LOCAL_ROOT;
+        if (Files.notExists(root)) {
+            return 0;
+        }
+
+        FileTime limite = FileTime.fromMillis(System.currentTimeMillis() - uploadTtlMillis);
+        List<Path> orfaos;
+        try (Stream<Path> dirs = Files.list(root)) {
+            orfaos = dirs.filter(Files::isDirectory)
+                    .filter(dir -> isOlderThan(dir, limite))
+                    .filter(dir -> {
+                        UUID uploadId = toUploadId(dir);
+                        return uploadId != null && !fileRepository.existsById(uploadId);
+                    })
+                    .toList();
+        } catch (IOException e) {
+            log.warn("Falha ao listar diretórios de upload: {}", root, e);
+            return 0;
+        }
+
+        orfaos.forEach(dir -> {
+            log.info("Removendo diretório de upload sem registro: {}", dir);
+            deleteTree(dir, KIND_UPLOAD);
+        });
+        return orfaos.size();
+    }
+
+    private void sweepLocalFiles() {
+        Path root = StorageKeys.LOCAL_ROOT;
+        if (Files.notExists(root)) {
+            return;
+        }
+
+        long agora = System.currentTimeMillis();
+        FileTime limiteTemp = FileTime.fromMillis(agora - tempTtlMillis);
+        FileTime limiteExport = FileTime.fromMillis(agora - exportTtlMillis);
+        try (Stream<Path> files = Files.walk(root)) {
+            files.filter(Files::isRegularFile).forEach(path -> {
+                if (isTemporary(path) && isOlderThan(path, limiteTemp)) {
+                    delete(path, KIND_TEMP);
+                } else if (isExport(root, path) && isOlderThan(path, limiteExport)) {
+                    delete(path, KIND_EXPORT);
+                }
+            });
+        } catch (IOException | UncheckedIOException e) {
+            log.warn("Falha ao varrer arquivos temporários em {}", root, e);
+        }
+    }
+
+    private void deleteTree(Path dir, String kind) {
+        if (Files.notExists(dir)) {
+            return;
+        }
+        List<Path> paths;
+        try (Stream<Path> walk = Files.walk(dir)) {
+            paths = walk.sorted(Comparator.reverseOrder()).toList();
+        } catch (IOException e) {
+            log.error("Erro ao listar diretório para remoção: {}", dir, e);
+            throw new ArquivoIOException();
+        }
+        paths.forEach(path -> delete(path, kind));
+    }
+
+    private void delete(Path path, String kind) {
+        throttle();
+        boolean arquivo = Files.isRegularFile(path);
+        try {
+            if (Files.deleteIfExists(path) && arquivo) {
+                Counter.builder(METRIC_PREFIX + ".deleted").tag("kind", kind).register(meterRegistry).increment();
+            }
+        } catch (IOException e) {
+            log.warn("Erro ao remover arquivo na varredura: {}", path, e);
+        }
+    }
+
+    private void throttle() {
+        long intervalo = TimeUnit.SECONDS.toNanos(1) / Math.max(1, deletesPerSecond);
+        long agora = System.nanoTime();
+        long espera = nextDeleteAt - agora;
+        if (espera > 0) {
+            try {
+                Thread.sleep(Duration.ofNanos(espera));
+            } catch (InterruptedException _) {
+                Thread.currentThread().interrupt();
+                throw new ArquivoIOException();
+            }
+        }
+        nextDeleteAt = Math.max(agora, nextDeleteAt) + intervalo;
+    }
+
+    private static boolean isTemporary(Path path) {
+        String name = path.getFileName().toString();
+        return name.startsWith(TEMP_PREFIX) || name.endsWith(TEMP_SUFFIX) || name.equals(FFMPEG_LIST_NAME);
+    }
+
+    private static boolean isExport(Path root, Path path) {
+        Path relative = root.relativize(path);
+        return relative.getNameCount() > 2 && relative.getName(1).toString().equals(EXPORTS_DIR);
+    }
+
+    private static boolean isOlderThan(Path path, FileTime limite) {
+        try {
+            return Files.getLastModifiedTime(path).compareTo(limite) < 0;
+        } catch (IOException _) {
+            return false;
+        }
+    }
+
+    private static UUID toUploadId(Path dir) {
+        try {
+            return UUID.fromString(dir.getFileName().toString());
+        } catch (IllegalArgumentException _) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package com.sachetto.streaming.service;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import javax.imageio.ImageIO;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Service;
+
+import com.sachetto.streaming.exception.ArquivoIOException;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@Service
+public class WatermarkOverlayService {
+
+    private static final String OVERLAY_DIR_PREFIX = "watermark_overlays_";
+    private static final String TEMP_PREFIX = ".tmp_";
+    private static final String FAVICON_CLASSPATH = "static/favicon.ico";
+    private static final String FAVICON_FALLBACK_PATH = "src/main/resources/static/favicon.ico";
+    private static final int PADDING = 10;
+    private static final int FONT_SIZE = 24;
+    private static final int CORNER_RADIUS = 12;
+
+    @Value("${streaming.config.watermark.overlay_cache_size:10000}")
+    private int cacheSize;
+
+    private Path overlayDir;
+    private Path faviconPath;
+    private Map<String, Path> overlays;
+    private final Map<Path, Integer> leases = new HashMap<>();
+    private final Set<Path> pendingDelete = new HashSet<>();
+
+    @PostConstruct
+    void init() throws IOException {
+        overlayDir = Files.createTempDirectory(OVERLAY_DIR_PREFIX);
+        faviconPath = loadFavicon();
+        overlays = new LinkedHashMap<>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Path> eldest) {
+                if (size() > cacheSize) {
+                    discard(eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+        log.info("Favicon da marca d'água carregado de {}", faviconPath);
+    }
+
+    @PreDestroy
+    void cleanup() {
+        try (Stream<Path> files = Files.walk(overlayDir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(this::deleteQuietly);
+        } catch (IOException e) {
+            log.warn("Erro ao limpar overlays de marca d'água: {}", overlayDir, e);
+        }
+    }
+
+    public List<Path> staleFiles(long olderThanMillis) {
+        FileTime limite = FileTime.fromMillis(System.currentTimeMillis() - olderThanMillis);
+        List<Path> stale = new ArrayList<>();
+        try (Stream<Path> dirs = Files.list(overlayDir.getParent())) {
+            dirs.filter(dir -> dir.getFileName().toString().startsWith(OVERLAY_DIR_PREFIX))
+                    .filter(dir -> !dir.equals(overlayDir) && isOlderThan(dir, limite))
+                    .forEach(dir -> collect(dir, stale));
+        } catch (IOException e) {
+            log.warn("Erro ao listar overlays órfãos de marca d'água", e);
+        }
+        try (Stream<Path> files = Files.list(overlayDir)) {
+            files.filter(file -> file.getFileName().toString().startsWith(TEMP_PREFIX) && isOlderThan(file, limite))
+                    .forEach(stale::add);
+        } catch (IOException e) {
+            log.warn("Erro ao listar overlays temporários: {}", overlayDir, e);
+        }
+        return stale;
+    }
+
+    public Path faviconPath() {
+        return faviconPath;
+    }
+
+    public Path acquire(String code) {
+        synchronized (this) {
+            Path cached = overlays.get(code);
+            if (cached != null && Files.exists(cached)) {
+                leases.merge(cached, 1, Integer::sum);
+                return cached;
+            }
+        }
+
+        Path target = overlayDir.resolve(UUID.nameUUIDFromBytes(code.getBytes(StandardCharsets.UTF_8)) + ".png");
+        synchronized (this) {
+            leases.merge(target, 1, Integer::sum);
+        }
+        try {
+            Path temp = Files.createTempFile(overlayDir, TEMP_PREFIX, ".png");
+            ImageIO.write(renderText(code), "png", temp.toFile());
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            log.error("Erro ao gerar overlay de marca d'água para o código {}", code, e);
+            release(target);
+            throw new ArquivoIOException();
+        }
+
+        synchronized (this) {
+            pendingDelete.remove(target);
+            overlays.put(code, target);
+        }
+        return target;
+    }
+
+    public synchronized void release(Path overlay) {
+        if (leases.merge(overlay, -1, Integer::sum) > 0) {
+            return;
+        }
+        leases.remove(overlay);
+        if (pendingDelete.remove(overlay)) {
+            deleteQuietly(overlay);
+        }
+    }
+
+    private void discard(Path overlay) {
+        if (leases.containsKey(overlay)) {
+            pendingDelete.add(overlay);
+        } else {
+            deleteQuietly(overlay);
+        }
+    }
+
+    private void collect(Path dir, List<Path> stale) {
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(stale::add);
+        } catch (IOException e) {
+            log.warn("Erro ao listar overlays órfãos: {}", dir, e);
+        }
+    }
+
+    private boolean isOlderThan(Path path, FileTime limite) {
+        try {
+            return Files.getLastModifiedTime(path).compareTo(limite) < 0;
+        } catch (IOException _) {
+            return false;
+        }
+    }
+
+    private Path loadFavicon() throws IOException {
+        ClassPathResource resource = new ClassPathResource(FAVICON_CLASSPATH);
+        if (!resource.exists()) {
+            log.warn("Favicon não encontrado no classpath, usando {}", FAVICON_FALLBACK_PATH);
+            return Paths.get(FAVICON_FALLBACK_PATH).toAbsolutePath();
+        }
+
+        Path target = overlayDir.resolve("favicon.ico");
+        try (InputStream is = resource.getInputStream()) {
+            Files.copy(is, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return target;
+    }
+
+    private BufferedImage renderText(String text) {
+        Font font = new Font("SansSerif", Font.BOLD, FONT_SIZE);
+
+        BufferedImage img = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g2d = img.createGraphics();
+        g2d.setFont(font);
+        FontMetrics fm = g2d.getFontMetrics();
+        int textWidth = fm.stringWidth(text);
+        int textHeight = fm.getHeight();
+        g2d.dispose();
+
+        int width = textWidth + PADDING * 2;
+        int height = textHeight + PADDING * 2;
+
+        img = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        g2d = img.createGraphics();
+
+        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g2d.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+
+        g2d.setColor(new Color(0, 0, 0, 128));
+        g2d.fillRoundRect(0, 0, width, height, CORNER_RADIUS, CORNER_RADIUS);
+
+        g2d.setColor(Color.WHITE);
+        g2d.setFont(font);
+        g2d.drawString(text, PADDING, fm.getAscent() + PADDING);
+        g2d.dispose();
+
+        return img;
+    }
+
+    private void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Erro ao remover overlay: {}", path, e);
+        }
+    }
+}
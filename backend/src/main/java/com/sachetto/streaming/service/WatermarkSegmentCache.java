@@ -0,0 +1,171 @@
+package com.sachetto.streaming.service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.sachetto.streaming.util.DiskLruIndex;
+import com.sachetto.streaming.util.StorageKeys;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class WatermarkSegmentCache {
+
+    private static final String WATERMARK_DIR = "watermarked";
+    private static final String METRIC_PREFIX = "streaming.watermark.cache";
+
+    public static final String TEMP_PREFIX = ".tmp_";
+
+    public record SegmentKey(UUID uploadId, String codigo, String rendition, String segmentName) { }
+
+    private record CachedFile(SegmentKey key, Path path, BasicFileAttributes attributes) { }
+
+    private final StorageService storageService;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${streaming.config.watermark.cache.max_bytes}")
+    private long maxBytes;
+
+    private DiskLruIndex<SegmentKey> index;
+    private Counter hits;
+    private Counter misses;
+    private Counter evictions;
+
+    @PostConstruct
+    void init() {
+        index = new DiskLruIndex<>(maxBytes);
+
+        hits = Counter.builder(METRIC_PREFIX + ".requests").tag("result", "hit").register(meterRegistry);
+        misses = Counter.builder(METRIC_PREFIX + ".requests").tag("result", "miss").register(meterRegistry);
+        evictions = Counter.builder(METRIC_PREFIX + ".evictions").register(meterRegistry);
+        Gauge.builder(METRIC_PREFIX + ".size", this, cache -> cache.index.totalBytes()).baseUnit("bytes").register(meterRegistry);
+        Gauge.builder(METRIC_PREFIX + ".entries", this, cache -> cache.index.size()).register(meterRegistry);
+
+        rebuildIndex();
+    }
+
+    public Path resolve(SegmentKey key) {
+        return StorageKeys.local(key.uploadId(), WATERMARK_DIR, key.codigo(), key.rendition(), key.segmentName());
+    }
+
+    public Path source(SegmentKey key) {
+        return storageService.localPath(StorageKeys.of(key.uploadId(), key.rendition(), key.segmentName()));
+    }
+
+    public Path lookup(SegmentKey key) {
+        DiskLruIndex.Entry entry = index.get(key);
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.path();
+    }
+
+    public Path peek(SegmentKey key) {
+        DiskLruIndex.Entry entry = index.get(key);
+        return entry != null ? entry.path() : null;
+    }
+
+    public void register(SegmentKey key, Path path) {
+        try {
+            delete(index.put(key, path, Files.size(path)));
+        } catch (IOException e) {
+            log.warn("Não foi possível registrar segmento no cache: {}", path, e);
+        }
+    }
+
+    public List<Path> evictIdle(long idleMillis) {
+        List<DiskLruIndex.Entry> evicted = index.evictIdle(idleMillis);
+        evictions.increment(evicted.size());
+        return evicted.stream().map(DiskLruIndex.Entry::path).toList();
+    }
+
+    private void delete(List<DiskLruIndex.Entry> evicted) {
+        for (DiskLruIndex.Entry entry : evicted) {
+            evictions.increment();
+            try {
+                Files.deleteIfExists(entry.path());
+                log.debug("Segmento removido do cache de marca d'água: {}", entry.path());
+            } catch (IOException e) {
+                log.warn("Erro ao remover segmento do cache: {}", entry.path(), e);
+            }
+        }
+    }
+
+    private void rebuildIndex() {
+        Path root = StorageKeys.LOCAL_ROOT;
+        if (Files.notExists(root)) {
+            return;
+        }
+
+        try (Stream<Path> uploads = Files.list(root)) {
+            uploads.map(upload -> upload.resolve(WATERMARK_DIR))
+                    .filter(Files::isDirectory)
+                    .flatMap(this::listCachedFiles)
+                    .sorted(Comparator.comparing(cached -> cached.attributes().lastModifiedTime()))
+                    .forEach(cached -> delete(index.put(cached.key(), cached.path(), cached.attributes().size())));
+        } catch (IOException e) {
+            log.warn("Falha ao reconstruir índice do cache de marca d'água", e);
+        }
+        log.info("Cache de marca d'água carregado: {} segmentos, {} bytes", index.size(), index.totalBytes());
+    }
+
+    private Stream<CachedFile> listCachedFiles(Path watermarkDir) {
+        UUID uploadId;
+        try {
+            uploadId = UUID.fromString(watermarkDir.getParent().getFileName().toString());
+        } catch (IllegalArgumentException _) {
+            return Stream.empty();
+        }
+
+        try (Stream<Path> files = Files.walk(watermarkDir, 3)) {
+            return files.filter(Files::isRegularFile)
+                    .map(path -> toCachedFile(uploadId, watermarkDir, path))
+                    .filter(cached -> cached != null)
+                    .toList()
+                    .stream();
+        } catch (IOException e) {
+            log.warn("Falha ao listar segmentos em cache: {}", watermarkDir, e);
+            return Stream.empty();
+        }
+    }
+
+    private CachedFile toCachedFile(UUID uploadId, Path watermarkDir, Path path) {
+        try {
+            Path relative = watermarkDir.relativize(path);
+            if (path.getFileName().toString().startsWith(TEMP_PREFIX)) {
+                log.info("Removendo render incompleto: {}", path);
+                Files.deleteIfExists(path);
+                return null;
+            }
+            if (relative.getNameCount() < 2) {
+                log.info("Removendo segmento legado sem código de marca d'água: {}", path);
+                Files.deleteIfExists(path);
+                return null;
+            }
+            String rendition = relative.getNameCount() == 3 ? relative.getName(1).toString() : null;
+            SegmentKey key = new SegmentKey(uploadId, relative.getName(0).toString(), rendition, path.getFileName().toString());
+            return new CachedFile(key, path, Files.readAttributes(path, BasicFileAttributes.class));
+        } catch (IOException e) {
+            log.warn("Ignorando arquivo inválido no cache: {}", path, e);
+            return null;
+        }
+    }
+}
@@ -1,13 +1,21 @@
 package com.sachetto.streaming.service;
 
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.sachetto.streaming.entity.File;
 import com.sachetto.streaming.entity.Usuario;
 import com.sachetto.streaming.entity.Watermark;
+import com.sachetto.streaming.repository.FileRepository;
+import com.sachetto.streaming.repository.UsuarioRepository;
 import com.sachetto.streaming.repository.WatermarkRepository;
 import com.sachetto.streaming.util.FixedProtocolGenerator;
+import com.sachetto.streaming.util.ForensicCode;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -17,7 +25,20 @@ import lombok.extern.slf4j.Slf4j;
 @RequiredArgsConstructor
 public class WatermarkService {
 	
+	private static final int MAX_CODIGOS_EM_MEMORIA = 10_000;
+	
 	private final WatermarkRepository watermarkRepository;
+	private final UsuarioRepository usuarioRepository;
+	private final FileRepository fileRepository;
+	
+	private final Map<String, String> codigos = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+			return size() > MAX_CODIGOS_EM_MEMORIA;
+		}
+	});
 
 	@Transactional
 	public String criarOuRecuperar(Usuario usuario, File file) {
@@ -25,6 +46,29 @@ public class WatermarkService {
 		return watermark.getCodigo();
 	}
 	
+	@Transactional
+	public String criarOuRecuperar(Long usuarioId, UUID fileId) {
+		String chave = usuarioId + ":" + fileId;
+		String codigo = codigos.get(chave);
+		if (codigo != null) {
+			return codigo;
+		}
+		
+		Usuario usuario = usuarioRepository.findById(usuarioId).orElseThrow();
+		File file = fileRepository.findById(fileId).orElseThrow();
+		codigo = criarOuRecuperar(usuario, file);
+		codigos.put(chave, codigo);
+		return codigo;
+	}
+	
+	public Long usuarioPorCodigo(String codigo, UUID fileId) {
+		return watermarkRepository.findUsuarioIdByCodigoAndFileId(codigo, fileId).orElse(null);
+	}
+	
+	public char variante(String codigo, long segmentIndex) {
+		return ForensicCode.variant(codigo, segmentIndex);
+	}
+	
 	private Watermark criar(Usuario usuario, File file) {
 		Watermark watermark = Watermark.builder()
 				.file(file)
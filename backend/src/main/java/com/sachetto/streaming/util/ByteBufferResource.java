@@ -0,0 +1,74 @@
+package com.sachetto.streaming.util;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+import org.springframework.core.io.AbstractResource;
+
+import lombok.Getter;
+
+public class ByteBufferResource extends AbstractResource {
+
+    private final String description;
+    private final ByteBuffer content;
+    @Getter
+    private final String etag;
+    private final long lastModified;
+
+    public ByteBufferResource(String description, ByteBuffer content, String etag, long lastModified) {
+        this.description = description;
+        this.content = content.asReadOnlyBuffer();
+        this.etag = etag;
+        this.lastModified = lastModified;
+    }
+
+    public ByteBuffer slice(long start, long length) {
+        return content.slice((int) start, (int) length);
+    }
+
+    @Override
+    public boolean exists() {
+        return true;
+    }
+
+    @Override
+    public long contentLength() {
+        return content.remaining();
+    }
+
+    @Override
+    public long lastModified() {
+        return lastModified;
+    }
+
+    @Override
+    public InputStream getInputStream() {
+        ByteBuffer buffer = content.duplicate();
+        return new InputStream() {
+            @Override
+            public int read() {
+                return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) {
+                if (!buffer.hasRemaining()) {
+                    return -1;
+                }
+                int read = Math.min(len, buffer.remaining());
+                buffer.get(b, off, read);
+                return read;
+            }
+        };
+    }
+
+    @Override
+    public String getFilename() {
+        return description.substring(description.lastIndexOf('/') + 1);
+    }
+
+    @Override
+    public String getDescription() {
+        return "memória [" + description + "]";
+    }
+}
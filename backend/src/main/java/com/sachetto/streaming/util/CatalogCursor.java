@@ -0,0 +1,38 @@
+package com.sachetto.streaming.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+import com.sachetto.streaming.exception.CursorInvalidoException;
+
+public record CatalogCursor(long createdAt, String id) {
+
+    private static final char SEPARATOR = ':';
+
+    public List<Object> searchAfter() {
+        return List.of(createdAt, id);
+    }
+
+    public String encode() {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((createdAt + String.valueOf(SEPARATOR) + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static CatalogCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(SEPARATOR);
+            if (separator <= 0 || separator == raw.length() - 1) {
+                throw new CursorInvalidoException();
+            }
+            return new CatalogCursor(Long.parseLong(raw.substring(0, separator)), raw.substring(separator + 1));
+        } catch (IllegalArgumentException _) {
+            throw new CursorInvalidoException();
+        }
+    }
+
+    public static CatalogCursor fromSortValues(List<Object> sortValues) {
+        return new CatalogCursor(((Number) sortValues.get(0)).longValue(), String.valueOf(sortValues.get(1)));
+    }
+}
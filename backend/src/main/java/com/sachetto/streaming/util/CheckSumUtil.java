@@ -3,16 +3,14 @@ package com.sachetto.streaming.util;
 import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.HexFormat;
 import java.util.List;
 
-import org.springframework.web.multipart.MultipartFile;
-
 import com.sachetto.streaming.exception.ChecksumException;
 
 import lombok.AccessLevel;
@@ -32,36 +30,16 @@ public class CheckSumUtil {
         }
     }
     
-    public static boolean isValid(MultipartFile file, String clientChecksum) {
-        if (clientChecksum == null || clientChecksum.isBlank()) return false;
-        try (InputStream is = file.getInputStream()) {
-            return calculateHash(List.of(is)).equalsIgnoreCase(clientChecksum);
-        } catch (Exception _) {
-            return false;
-        }
-    }
-
-    public static boolean isValidFullFile(List<String> chunks, String expectedFullHash) {      
+    public static String calculateHash(ByteBuffer content) {
         try {
             MessageDigest digest = MessageDigest.getInstance(ALGORITHM);
-            byte[] buffer = new byte[BUFFER_8KB];
-
-            for (String chunkPathStr : chunks) {
-                Path path = Paths.get(chunkPathStr);
-                
-                try (InputStream is = new BufferedInputStream(Files.newInputStream(path))) {
-                    int bytesRead;
-                    while ((bytesRead = is.read(buffer)) != -1) {
-                        digest.update(buffer, 0, bytesRead);
-                    }
-                }
-            }
-            return HexFormat.of().formatHex(digest.digest()).equalsIgnoreCase(expectedFullHash);
-        } catch (Exception _) {
+            digest.update(content.duplicate());
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException _) {
             throw new ChecksumException();
         }
     }
-
+    
     private static String calculateHash(List<InputStream> streams) throws NoSuchAlgorithmException, IOException {
         MessageDigest digest = MessageDigest.getInstance(ALGORITHM);
         byte[] buffer = new byte[BUFFER_8KB];
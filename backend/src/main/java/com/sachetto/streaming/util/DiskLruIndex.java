@@ -0,0 +1,91 @@
+package com.sachetto.streaming.util;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class DiskLruIndex<K> {
+
+    public record Entry(Path path, long size) { }
+
+    private final LinkedHashMap<K, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<K, Long> accessedAt = new HashMap<>();
+    private final long maxBytes;
+    private long totalBytes;
+
+    public DiskLruIndex(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    public synchronized Entry get(K key) {
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            accessedAt.put(key, System.currentTimeMillis());
+        }
+        return entry;
+    }
+
+    public synchronized List<Entry> put(K key, Path path, long size) {
+        Entry previous = entries.put(key, new Entry(path, size));
+        accessedAt.put(key, System.currentTimeMillis());
+        if (previous != null) {
+            totalBytes -= previous.size();
+        }
+        totalBytes += size;
+        return evictOverBudget(key);
+    }
+
+    public synchronized Entry remove(K key) {
+        Entry removed = entries.remove(key);
+        accessedAt.remove(key);
+        if (removed != null) {
+            totalBytes -= removed.size();
+        }
+        return removed;
+    }
+
+    public synchronized List<Entry> evictIdle(long idleMillis) {
+        long limite = System.currentTimeMillis() - idleMillis;
+        List<Entry> evicted = new ArrayList<>();
+        Iterator<Map.Entry<K, Entry>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<K, Entry> eldest = iterator.next();
+            if (accessedAt.getOrDefault(eldest.getKey(), 0L) >= limite) {
+                break;
+            }
+            iterator.remove();
+            accessedAt.remove(eldest.getKey());
+            totalBytes -= eldest.getValue().size();
+            evicted.add(eldest.getValue());
+        }
+        return evicted;
+    }
+
+    public synchronized long totalBytes() {
+        return totalBytes;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private List<Entry> evictOverBudget(K protectedKey) {
+        List<Entry> evicted = new ArrayList<>();
+        Iterator<Map.Entry<K, Entry>> iterator = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && iterator.hasNext()) {
+            Map.Entry<K, Entry> eldest = iterator.next();
+            if (eldest.getKey().equals(protectedKey)) {
+                continue;
+            }
+            iterator.remove();
+            accessedAt.remove(eldest.getKey());
+            totalBytes -= eldest.getValue().size();
+            evicted.add(eldest.getValue());
+        }
+        return evicted;
+    }
+}
@@ -0,0 +1,62 @@
+package com.sachetto.streaming.util;
+
+import java.util.Map;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class ForensicCode {
+    public static final char VARIANT_A = 'A';
+    public static final char VARIANT_B = 'B';
+    public static final int CODE_LENGTH = 12;
+    public static final int BITS_PER_CHAR = 6;
+    public static final int TOTAL_BITS = CODE_LENGTH * BITS_PER_CHAR;
+
+    private static final String CHARS = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ";
+
+    public static char variant(String codigo, long segmentIndex) {
+        int bit = (int) (segmentIndex % TOTAL_BITS);
+        int value = charValue(codigo, bit / BITS_PER_CHAR);
+        int shift = BITS_PER_CHAR - 1 - bit % BITS_PER_CHAR;
+        return ((value >> shift) & 1) == 0 ? VARIANT_A : VARIANT_B;
+    }
+
+    public static String decode(Map<Long, Character> variantsBySegment) {
+        int[] votes = new int[TOTAL_BITS];
+        int[] seen = new int[TOTAL_BITS];
+        variantsBySegment.forEach((segmentIndex, variant) -> {
+            int bit = (int) (segmentIndex % TOTAL_BITS);
+            seen[bit]++;
+            votes[bit] += variant == VARIANT_B ? 1 : -1;
+        });
+
+        StringBuilder codigo = new StringBuilder(CODE_LENGTH);
+        for (int c = 0; c < CODE_LENGTH; c++) {
+            int value = 0;
+            for (int b = 0; b < BITS_PER_CHAR; b++) {
+                int bit = c * BITS_PER_CHAR + b;
+                if (seen[bit] == 0 || votes[bit] == 0) {
+                    throw new IllegalArgumentException("Sequência insuficiente para decodificar o bit " + bit + " do código");
+                }
+                value = (value << 1) | (votes[bit] > 0 ? 1 : 0);
+            }
+            if (value >= CHARS.length()) {
+                throw new IllegalArgumentException("Sequência não corresponde a um código válido");
+            }
+            codigo.append(CHARS.charAt(value));
+        }
+        return codigo.toString();
+    }
+
+    private static int charValue(String codigo, int position) {
+        if (codigo.length() != CODE_LENGTH) {
+            throw new IllegalArgumentException("Código de marca d'água com tamanho inválido: " + codigo);
+        }
+        int value = CHARS.indexOf(Character.toUpperCase(codigo.charAt(position)));
+        if (value < 0) {
+            throw new IllegalArgumentException("Código de marca d'água inválido: " + codigo);
+        }
+        return value;
+    }
+}
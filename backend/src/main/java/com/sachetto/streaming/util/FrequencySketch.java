@@ -0,0 +1,62 @@
+package com.sachetto.streaming.util;
+
+public class FrequencySketch<K> {
+
+    private static final int DEPTH = 4;
+    private static final int MAX_COUNT = 15;
+    private static final int RESET_MULTIPLIER = 10;
+    private static final int[] SEEDS = { 0x97cb3127, 0x9e3779b9, 0x85ebca6b, 0xc2b2ae35 };
+
+    private final int[] counters;
+    private final int width;
+    private final int sampleSize;
+    private int additions;
+
+    public FrequencySketch(int expectedEntries) {
+        this.width = Integer.highestOneBit(Math.max(16, expectedEntries) - 1) << 1;
+        this.counters = new int[width * DEPTH];
+        this.sampleSize = width * RESET_MULTIPLIER;
+    }
+
+    public synchronized void increment(K key) {
+        int hash = key.hashCode();
+        int frequency = frequency(hash);
+        if (frequency >= MAX_COUNT) {
+            return;
+        }
+        for (int row = 0; row < DEPTH; row++) {
+            int slot = slot(hash, row);
+            if (counters[slot] == frequency) {
+                counters[slot]++;
+            }
+        }
+        if (++additions >= sampleSize) {
+            reset();
+        }
+    }
+
+    public synchronized int frequency(K key) {
+        return frequency(key.hashCode());
+    }
+
+    private int frequency(int hash) {
+        int min = MAX_COUNT;
+        for (int row = 0; row < DEPTH; row++) {
+            min = Math.min(min, counters[slot(hash, row)]);
+        }
+        return min;
+    }
+
+    private void reset() {
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] >>>= 1;
+        }
+        additions /= 2;
+    }
+
+    private int slot(int hash, int row) {
+        int h = (hash ^ SEEDS[row]) * 0x9e3779b1;
+        h ^= h >>> 16;
+        return row * width + (h & (width - 1));
+    }
+}
@@ -0,0 +1,52 @@
+package com.sachetto.streaming.util;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.StringJoiner;
+import java.util.UUID;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class StorageKeys {
+    public static final Path LOCAL_ROOT = Paths.get("uploads");
+    public static final String SEPARATOR = "/";
+
+    public static String of(UUID uploadId, String... parts) {
+        StringJoiner key = new StringJoiner(SEPARATOR).add(uploadId.toString());
+        for (String part : parts) {
+            if (part != null) {
+                key.add(part);
+            }
+        }
+        return key.toString();
+    }
+
+    public static String chunk(UUID uploadId, long index) {
+        return of(uploadId, index + ".mp4");
+    }
+
+    public static Path local(String key) {
+        return LOCAL_ROOT.resolve(key);
+    }
+
+    public static Path local(UUID uploadId, String... parts) {
+        return local(of(uploadId, parts));
+    }
+
+    public static String keyOf(Path path) {
+        Path relative = LOCAL_ROOT.toAbsolutePath().normalize().relativize(path.toAbsolutePath().normalize());
+        if (relative.startsWith("..")) {
+            throw new IllegalArgumentException("Caminho fora do diretório de uploads: " + path);
+        }
+        StringJoiner key = new StringJoiner(SEPARATOR);
+        relative.forEach(name -> key.add(name.toString()));
+        return key.toString();
+    }
+
+    public static String normalize(String keyOrPath) {
+        Path path = Paths.get(keyOrPath);
+        return path.isAbsolute() || path.startsWith(LOCAL_ROOT) ? keyOf(path) : keyOrPath;
+    }
+}
@@ -0,0 +1,130 @@
+package com.sachetto.streaming.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+// Requer o MinIO do compose.yaml: docker compose up -d && STREAMING_TEST_S3_ENDPOINT=http://localhost:9000 ./mvnw test
+@EnabledIfEnvironmentVariable(named = "STREAMING_TEST_S3_ENDPOINT", matches = ".+")
+class StorageServiceS3Test {
+
+	private static final int PART_SIZE = 5 * 1024 * 1024;
+
+	@TempDir
+	Path cacheDir;
+
+	private StorageServiceS3 storage;
+	private String prefix;
+
+	@BeforeEach
+	void setUp() {
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+		StorageMemoryCache memoryCache = new StorageMemoryCache(registry);
+		ReflectionTestUtils.setField(memoryCache, "enabled", false);
+		ReflectionTestUtils.setField(memoryCache, "maxBytes", 1024L * 1024);
+		ReflectionTestUtils.setField(memoryCache, "maxObjectBytes", 64L * 1024);
+		ReflectionTestUtils.setField(memoryCache, "windowPercent", 1);
+		ReflectionTestUtils.setField(memoryCache, "minFrequency", 2);
+		ReflectionTestUtils.setField(memoryCache, "loadQueue", 16);
+		memoryCache.init();
+
+		StorageReadCache readCache = new StorageReadCache(registry);
+		ReflectionTestUtils.setField(readCache, "dir", cacheDir.toString());
+		ReflectionTestUtils.setField(readCache, "maxBytes", 64L * 1024 * 1024);
+		readCache.init();
+
+		storage = new StorageServiceS3(memoryCache, readCache);
+		ReflectionTestUtils.setField(storage, "endpoint", System.getenv("STREAMING_TEST_S3_ENDPOINT"));
+		ReflectionTestUtils.setField(storage, "region", "us-east-1");
+		ReflectionTestUtils.setField(storage, "bucket", env("STREAMING_TEST_S3_BUCKET", "streaming"));
+		ReflectionTestUtils.setField(storage, "accessKey", env("STREAMING_TEST_S3_ACCESS_KEY", "streaming"));
+		ReflectionTestUtils.setField(storage, "secretKey", env("STREAMING_TEST_S3_SECRET_KEY", "streaming-secret"));
+		ReflectionTestUtils.setField(storage, "pathStyle", true);
+		ReflectionTestUtils.setField(storage, "partSize", PART_SIZE);
+		storage.init();
+
+		prefix = "test-" + UUID.randomUUID();
+	}
+
+	@AfterEach
+	void tearDown() {
+		storage.stop();
+	}
+
+	@Test
+	void gravaLeEApagaObjetoPequeno() throws IOException {
+		String key = prefix + "/playlist.m3u8";
+		byte[] conteudo = bytes(1000);
+
+		storage.write(key, new ByteArrayInputStream(conteudo));
+
+		assertTrue(storage.exists(key));
+		try (InputStream is = storage.open(key)) {
+			assertArrayEquals(conteudo, is.readAllBytes());
+		}
+		assertArrayEquals(conteudo, Files.readAllBytes(storage.localPath(key)));
+
+		storage.delete(key);
+		assertFalse(storage.exists(key));
+	}
+
+	@Test
+	void gravaObjetoGrandeEmMultipart() throws IOException {
+		String key = prefix + "/segment_000.ts";
+		byte[] conteudo = bytes(PART_SIZE * 2 + 12345);
+
+		storage.write(key, new ByteArrayInputStream(conteudo));
+
+		try (InputStream is = storage.open(key)) {
+			assertArrayEquals(conteudo, is.readAllBytes());
+		}
+		storage.delete(key);
+	}
+
+	@Test
+	void sobrescritaInvalidaCacheLocal() throws IOException {
+		String key = prefix + "/thumbnail.png";
+		storage.write(key, new ByteArrayInputStream(bytes(100)));
+		storage.localPath(key);
+
+		byte[] novo = bytes(200);
+		storage.write(key, new ByteArrayInputStream(novo));
+
+		assertArrayEquals(novo, Files.readAllBytes(storage.localPath(key)));
+		storage.delete(key);
+	}
+
+	@Test
+	void existsRetornaFalsoParaObjetoInexistente() {
+		assertFalse(storage.exists(prefix + "/forensic/.ready"));
+	}
+
+	private static byte[] bytes(int tamanho) {
+		byte[] dados = new byte[tamanho];
+		new Random(tamanho).nextBytes(dados);
+		return dados;
+	}
+
+	private static String env(String nome, String padrao) {
+		String valor = System.getenv(nome);
+		return valor == null || valor.isBlank() ? padrao : valor;
+	}
+}
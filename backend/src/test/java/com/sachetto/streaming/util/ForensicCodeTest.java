@@ -0,0 +1,82 @@
+package com.sachetto.streaming.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+class ForensicCodeTest {
+
+	private static final String CODIGO = "A1B2C3D4E5F6";
+
+	@Test
+	void decodeRecuperaCodigoDeUmCicloCompleto() {
+		assertEquals(CODIGO, ForensicCode.decode(sequencia(CODIGO, 0, ForensicCode.TOTAL_BITS)));
+	}
+
+	@Test
+	void decodeRecuperaCodigoComIndicesAlemDoPrimeiroCiclo() {
+		assertEquals(CODIGO, ForensicCode.decode(sequencia(CODIGO, ForensicCode.TOTAL_BITS * 3L + 5, ForensicCode.TOTAL_BITS)));
+	}
+
+	@Test
+	void decodeAceitaCodigoEmMinusculas() {
+		assertEquals(CODIGO, ForensicCode.decode(sequencia(CODIGO.toLowerCase(), 0, ForensicCode.TOTAL_BITS)));
+	}
+
+	@Test
+	void decodeResolveDivergenciaPorMaioria() {
+		Map<Long, Character> variants = sequencia(CODIGO, 0, ForensicCode.TOTAL_BITS * 3L);
+		variants.put(7L, inverter(variants.get(7L)));
+
+		assertEquals(CODIGO, ForensicCode.decode(variants));
+	}
+
+	@Test
+	void decodeRejeitaEmpate() {
+		Map<Long, Character> variants = sequencia(CODIGO, 0, ForensicCode.TOTAL_BITS * 2L);
+		long repetido = ForensicCode.TOTAL_BITS + 7L;
+		variants.put(repetido, inverter(variants.get(repetido)));
+
+		assertThrows(IllegalArgumentException.class, () -> ForensicCode.decode(variants));
+	}
+
+	@Test
+	void decodeRejeitaBitSemAmostra() {
+		Map<Long, Character> variants = sequencia(CODIGO, 0, ForensicCode.TOTAL_BITS);
+		variants.remove(10L);
+
+		assertThrows(IllegalArgumentException.class, () -> ForensicCode.decode(variants));
+	}
+
+	@Test
+	void decodeRejeitaValorForaDoAlfabeto() {
+		Map<Long, Character> variants = new HashMap<>();
+		for (long i = 0; i < ForensicCode.TOTAL_BITS; i++) {
+			variants.put(i, ForensicCode.VARIANT_B);
+		}
+
+		assertThrows(IllegalArgumentException.class, () -> ForensicCode.decode(variants));
+	}
+
+	@Test
+	void variantRejeitaCodigoInvalido() {
+		assertThrows(IllegalArgumentException.class, () -> ForensicCode.variant("CURTO", 0));
+		assertThrows(IllegalArgumentException.class, () -> ForensicCode.variant("A1B2C3D4E5F!", 71));
+	}
+
+	private static Map<Long, Character> sequencia(String codigo, long inicio, long quantidade) {
+		Map<Long, Character> variants = new HashMap<>();
+		for (long i = inicio; i < inicio + quantidade; i++) {
+			variants.put(i, ForensicCode.variant(codigo, i));
+		}
+		return variants;
+	}
+
+	private static char inverter(char variant) {
+		return variant == ForensicCode.VARIANT_A ? ForensicCode.VARIANT_B : ForensicCode.VARIANT_A;
+	}
+}
@@ -3,6 +3,26 @@
 import { useState, useRef, useEffect } from "react";
 import { FFmpeg } from "@ffmpeg/ffmpeg";
 import { fetchFile, toBlobURL } from "@ffmpeg/util";
+import { ManifestResponseDto, UploadStatusResponseDto } from "../types";
+
+const MAX_CHUNK_ATTEMPTS = 3;
+
+const fetchReceivedChunks = async (uploadId: string): Promise<Set<number>> => {
+    const received = new Set<number>();
+    try {
+        const res = await fetch(`http://localhost:8080/api/v1/upload/${uploadId}/manifest`);
+        if (!res.ok) return received;
+        const manifest: ManifestResponseDto = await res.json();
+        for (const range of manifest.chunks) {
+            for (let index = range.start; index <= range.end; index++) {
+                received.add(index);
+            }
+        }
+    } catch (error) {
+        console.warn("Failed to fetch upload manifest", error);
+    }
+    return received;
+};
 
 export default function FileUploader() {
     const [loaded, setLoaded] = useState(false);
@@ -144,20 +164,31 @@ export default function FileUploader() {
             const chunkBlob = new Blob([chunksData[i] as unknown as BlobPart], { type: "video/mp4" });
             const chunkHash = await calculateSHA256(chunkBlob);
 
-            const formData = new FormData();
-            formData.append("uploadId", uploadId);
-            formData.append("index", (i + 1).toString());
-            formData.append("chunkHash", chunkHash);
-            formData.append("file", chunkBlob, chunkName);
-
             setStatus(`Uploading chunk ${i + 1} of ${chunkFiles.length}...`);
 
-            const chunkRes = await fetch("http://localhost:8080/api/v1/upload/chunk", {
-                method: "POST",
-                body: formData
-            });
+            let uploaded = false;
+            for (let attempt = 1; attempt <= MAX_CHUNK_ATTEMPTS && !uploaded; attempt++) {
+                try {
+                    const chunkRes = await fetch(`http://localhost:8080/api/v1/upload/${uploadId}/chunks/${i + 1}`, {
+                        method: "PUT",
+                        headers: {
+                            "Content-Type": "application/octet-stream",
+                            "X-Chunk-Hash": chunkHash
+                        },
+                        body: chunkBlob
+                    });
+                    uploaded = chunkRes.ok;
+                } catch (error) {
+                    console.warn(`Chunk ${i + 1} upload attempt ${attempt} failed`, error);
+                }
+
+                if (!uploaded) {
+                    const received = await fetchReceivedChunks(uploadId);
+                    uploaded = received.has(i + 1);
+                }
+            }
 
-            if (!chunkRes.ok) {
+            if (!uploaded) {
                 setStatus(`Failed to upload chunk ${i + 1}`);
                 chunksData.length = 0;
                 setIsLoading(false);
@@ -169,16 +200,46 @@ export default function FileUploader() {
         }
 
         setStatus("Completing upload...");
-        await fetch("http://localhost:8080/api/v1/upload/complete", {
+        const completeRes = await fetch("http://localhost:8080/api/v1/upload/complete", {
             method: "POST",
             headers: { "Content-Type": "application/json" },
             body: JSON.stringify({ uploadId })
         });
 
-        setStatus("Upload complete successfully!");
-        setIsLoading(false);
         await ffmpeg.deleteFile(inputName);
         chunksData.length = 0;
+
+        if (!completeRes.ok) {
+            setStatus("Failed to complete upload");
+            setIsLoading(false);
+            return;
+        }
+
+        await waitForTranscode(uploadId);
+        setIsLoading(false);
+    };
+
+    const waitForTranscode = async (uploadId: string) => {
+        while (true) {
+            const statusRes = await fetch(`http://localhost:8080/api/v1/upload/${uploadId}/status`);
+            if (!statusRes.ok) {
+                setStatus("Failed to fetch processing status");
+                return;
+            }
+
+            const uploadStatus: UploadStatusResponseDto = await statusRes.json();
+            if (uploadStatus.status === "SUCCESS") {
+                setStatus("Upload complete successfully!");
+                return;
+            }
+            if (uploadStatus.status === "FAILED") {
+                setStatus(`Processing failed: ${uploadStatus.error ?? "unknown error"}`);
+                return;
+            }
+
+            setStatus(`Processing video... ${uploadStatus.progress ?? 0}%`);
+            await new Promise((resolve) => setTimeout(resolve, 2000));
+        }
     };
 
     return (
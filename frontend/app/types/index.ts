@@ -1,6 +1,6 @@
-export interface ChunkIndexResponseDto {
-    index: number;
-    hash: string;
+export interface ChunkRangeResponseDto {
+    start: number;
+    end: number;
 }
 
 export interface ManifestResponseDto {
@@ -8,7 +8,9 @@ export interface ManifestResponseDto {
     fileName: string;
     fileSize: number;
     fileHash: string;
-    chunks: ChunkIndexResponseDto[];
+    totalChunks: number;
+    receivedChunks: number;
+    chunks: ChunkRangeResponseDto[];
 }
 
 export interface PageResponse<T> {
@@ -33,3 +35,12 @@ export interface FileRead {
     fileHash?: string;
     [key: string]: any;
 }
+
+export interface UploadStatusResponseDto {
+    uploadId: string;
+    jobId: string | null;
+    status: "PENDING" | "RUNNING" | "SUCCESS" | "FAILED" | null;
+    progress: number | null;
+    valid: boolean;
+    error: string | null;
+}